@@ -0,0 +1,170 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Adaptive probe sequence of the {@link Agent#grabbers()}, used by the agent linear scan
+ * (see {@link Agent#setAdaptiveOrdering(boolean)}).
+ * <p>
+ * The hit rate and the {@link Grabber#checkIfGrabsInput(BogusEvent)} cost of each grabber
+ * are recorded and, every {@link #period()} picks, the grabbers are sorted by increasing
+ * expected cost per hit (i.e., {@code cost / hitRate}), so that cheap, likely hits are
+ * queried first (grabbers which have never been queried go last). Statistics are halved
+ * at each reordering so that the sequence follows the recent usage.
+ * <p>
+ * Grabber priorities (see {@link Agent#setGrabberPriority(Grabber, int)}) override the
+ * adaptive ordering: higher priority grabbers are always queried first and the adaptive
+ * ordering only sorts grabbers sharing the same priority. Grabbers with the same priority
+ * and statistics keep their {@link Agent#pickingOrder()}.
+ */
+public class AdaptiveOrdering {
+  public static final int DEFAULT_PERIOD = 128;
+
+  protected static class Stats {
+    protected Grabber grabber;
+    protected int index, priority;
+    protected double checks, hits, nanos, score;
+  }
+
+  protected static final Comparator<Stats> ORDER = new Comparator<Stats>() {
+    @Override
+    public int compare(Stats a, Stats b) {
+      if (a.priority != b.priority)
+        return a.priority > b.priority ? -1 : 1;
+      int c = Double.compare(a.score, b.score);
+      return c != 0 ? c : a.index - b.index;
+    }
+  };
+
+  protected Agent agent;
+  protected IdentityHashMap<Grabber, Stats> stats;
+  protected Stats[] order;
+  protected int size, period, picks;
+  protected boolean dirty;
+
+  /**
+   * Same as {@code this(agent, DEFAULT_PERIOD)}.
+   */
+  public AdaptiveOrdering(Agent agent) {
+    this(agent, DEFAULT_PERIOD);
+  }
+
+  /**
+   * Constructs the probe sequence of the given agent grabbers, reordered every
+   * {@code period} picks.
+   */
+  public AdaptiveOrdering(Agent agent, int period) {
+    this.agent = agent;
+    stats = new IdentityHashMap<Grabber, Stats>();
+    order = new Stats[16];
+    setPeriod(period);
+    dirty = true;
+  }
+
+  /**
+   * Returns the number of picks between two reorderings.
+   */
+  public int period() {
+    return period;
+  }
+
+  /**
+   * Sets the {@link #period()}.
+   */
+  public void setPeriod(int period) {
+    this.period = Math.max(1, period);
+  }
+
+  /**
+   * Marks the sequence to be rebuilt from the agent grabbers. Called by the agent when
+   * grabbers are added or removed, or when their priorities change. The statistics of the
+   * remaining grabbers are kept.
+   */
+  public void invalidate() {
+    dirty = true;
+  }
+
+  /**
+   * Updates the probe sequence (which is rebuilt if needed and reordered once every
+   * {@link #period()} calls) and returns its size. Should be called once per pick, before
+   * querying the {@link #grabber(int)}s.
+   */
+  public int update() {
+    if (dirty)
+      rebuild();
+    else if (++picks >= period)
+      reorder();
+    return size;
+  }
+
+  /**
+   * Returns the i-th grabber of the probe sequence.
+   */
+  public Grabber grabber(int i) {
+    return order[i].grabber;
+  }
+
+  /**
+   * Records the result and the cost (in nanoseconds) of querying the i-th grabber of the
+   * probe sequence.
+   */
+  public void record(int i, boolean hit, long nanos) {
+    Stats s = order[i];
+    s.checks++;
+    s.nanos += nanos;
+    if (hit)
+      s.hits++;
+  }
+
+  protected void rebuild() {
+    List<Grabber> list = agent.pickingOrder();
+    IdentityHashMap<Grabber, Stats> previous = stats;
+    stats = new IdentityHashMap<Grabber, Stats>(list.size() * 2);
+    size = list.size();
+    if (order.length < size)
+      order = new Stats[size];
+    else
+      Arrays.fill(order, size, order.length, null);
+    for (int i = 0; i < size; i++) {
+      Grabber grabber = list.get(i);
+      Stats s = previous.get(grabber);
+      if (s == null) {
+        s = new Stats();
+        s.grabber = grabber;
+      }
+      s.index = i;
+      s.priority = agent.grabberPriority(grabber);
+      stats.put(grabber, s);
+      order[i] = s;
+    }
+    dirty = false;
+    reorder();
+  }
+
+  protected void reorder() {
+    picks = 0;
+    for (int i = 0; i < size; i++) {
+      Stats s = order[i];
+      // expected cost per hit, using a Laplace smoothed hit rate. Grabbers which haven't
+      // been queried yet go last, in list order
+      s.score = s.checks == 0 ? Double.MAX_VALUE : (s.nanos / s.checks) * ((s.checks + 2) / (s.hits + 1));
+      s.checks *= 0.5;
+      s.hits *= 0.5;
+      s.nanos *= 0.5;
+    }
+    Arrays.sort(order, 0, size, ORDER);
+  }
+}
@@ -11,9 +11,15 @@
 package remixlab.bias;
 
 import remixlab.bias.event.MotionEvent;
+import remixlab.bias.event.MotionShortcut;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Agents gather data from different sources --mostly from input devices such touch
@@ -31,23 +37,74 @@ import java.util.List;
  * grabber object in {@link #grabbers()} to check if its
  * {@link Grabber#checkIfGrabsInput(BogusEvent)}) condition is met (see
  * {@link #updateTrackedGrabber(BogusEvent)}, {@link #updateTrackedGrabberFeed()}). The
- * first grabber meeting the condition, namely the {@link #trackedGrabber()}), will then
- * be set as the {@link #inputGrabber()}. When no grabber meets the condition, the
+ * first grabber meeting the condition (see {@link #pickingOrder()}), namely the
+ * {@link #trackedGrabber()}), will then be set as the {@link #inputGrabber()}. When no grabber meets the condition, the
  * {@link #trackedGrabber()} is then set to null. In this case, a non-null
  * {@link #inputGrabber()} may still be set with {@link #setDefaultGrabber(Grabber)} (see
  * also {@link #defaultGrabber()}).
+ * <p>
+ * When the agent handles lots of grabbers, a {@link SpatialIndex} (see
+ * {@link #setSpatialIndex(SpatialIndex)}) may be used to short-list the grabbers to be
+ * queried. Otherwise, large {@link #grabbers()} lists may be queried in parallel (see
+ * {@link #setParallelPicking(boolean)}).
  */
 public abstract class Agent {
   protected List<Grabber> grabberList;
-  protected Grabber trackedGrabber, defaultGrabber;
-  protected boolean agentTrckn;
+  protected volatile Grabber trackedGrabber, defaultGrabber, capturedGrabber;
+  protected volatile boolean agentTrckn, autoCapture;
+  protected int eventPriority;
   protected InputHandler handler;
+  protected SpatialIndex spatialIndex;
+  protected ParallelPicker parallelPicker;
+  protected int parallelPickingThreshold;
+  protected AdaptiveOrdering adaptiveOrdering;
+  protected PickingCache pickingCache;
+  // bumped when the grabbers are added, removed, re-prioritized or report movement
+  protected long pickingRevision;
+  protected GrabberPrioritySet grabberSet;
+  // published picking order when registration is concurrent
+  protected List<Grabber> snapshot;
+  protected boolean concurrentRegistration;
+  protected volatile boolean snapshotDirty;
+  // thread picking the grabbers when it's not the one handling the events (see
+  // InputHandler#startInputThread), and the changes it should apply on its behalf
+  protected volatile Thread pickingThread;
+  protected ConcurrentLinkedQueue<Grabber> pendingBounds;
+  protected volatile boolean handoff, pointersReset;
+  protected HashMap<Class<?>, List<Grabber>> partitions;
+  // backing lists of the partitions, reordered in place when a priority changes
+  protected HashMap<Class<?>, ArrayList<Grabber>> partitionLists;
+  protected boolean partitioning;
+  protected PointerMap pointerMap;
+  protected boolean multiPointer;
+  // multi-pointer batch buffers
+  protected Grabber[] batchGrabbers;
+  protected int[] pendingEvents;
+  protected float[] sensitivities;
+  // per shortcut sensitivities
+  protected int[] sensitivityIds, sensitivityModifiers;
+  protected float[][] sensitivityVectors;
+  protected int sensitivityCount;
 
   /**
    * Constructs an Agent and registers is at the given inputHandler.
    */
   public Agent(InputHandler inputHandler) {
-    grabberList = new ArrayList<Grabber>();
+    grabberSet = new GrabberPrioritySet();
+    grabberList = grabberSet.grabbers();
+    partitions = new HashMap<Class<?>, List<Grabber>>();
+    partitionLists = new HashMap<Class<?>, ArrayList<Grabber>>();
+    partitioning = true;
+    pointerMap = new PointerMap();
+    pendingBounds = new ConcurrentLinkedQueue<Grabber>();
+    batchGrabbers = new Grabber[16];
+    pendingEvents = new int[16];
+    sensitivities = sensitivityVector(null);
+    sensitivityIds = new int[0];
+    sensitivityModifiers = new int[0];
+    sensitivityVectors = new float[0][];
+    eventPriority = -1;
+    parallelPickingThreshold = ParallelPicker.DEFAULT_THRESHOLD;
     setTracking(true);
     handler = inputHandler;
     handler.registerAgent(this);
@@ -56,19 +113,82 @@ public abstract class Agent {
   // 1. Grabbers
 
   /**
-   * Removes the grabber from the {@link #grabbers()} list.
+   * Removes the grabber from the {@link #grabbers()} list, keeping the order of the
+   * remaining ones.
    *
+   * @see #removeGrabber(Grabber, boolean)
    * @see #removeGrabbers()
    * @see #addGrabber(Grabber)
    * @see #hasGrabber(Grabber)
    * @see #grabbers()
    */
   public boolean removeGrabber(Grabber grabber) {
+    return removeGrabber(grabber, true);
+  }
+
+  /**
+   * Removes the grabber from the {@link #grabbers()} list. When {@code keepOrder} is
+   * {@code false} the last added grabber is moved into the place of the removed one,
+   * which makes removal an O(1) operation (see {@link GrabberPrioritySet#swapRemove(Grabber)})
+   * but may change which grabber is picked among several overlapping ones with the same
+   * {@link #grabberPriority(Grabber)}.
+   *
+   * @see #removeGrabber(Grabber)
+   */
+  public boolean removeGrabber(Grabber grabber, boolean keepOrder) {
+    synchronized (grabberSet) {
+      if (!grabberSet.contains(grabber))
+        return false;
+      if (!isConcurrentRegistration())
+        release(grabber);
+      if (keepOrder)
+        grabberSet.remove(grabber);
+      else
+        grabberSet.swapRemove(grabber);
+    }
+    grabbersChanged();
+    return true;
+  }
+
+  /**
+   * Removes all the given grabbers from the {@link #grabbers()} list in a single pass,
+   * keeping the order of the remaining ones. Returns the number of removed grabbers.
+   *
+   * @see #addGrabbers(Collection)
+   */
+  public int removeGrabbers(Collection<? extends Grabber> grabbers) {
+    int removed;
+    synchronized (grabberSet) {
+      if (!isConcurrentRegistration())
+        for (Grabber grabber : grabbers)
+          release(grabber);
+      removed = grabberSet.removeAll(grabbers);
+    }
+    if (removed > 0)
+      grabbersChanged();
+    return removed;
+  }
+
+  /**
+   * Resets the default, tracked and captured grabbers if they refer to the given
+   * grabber, which is about to be removed.
+   */
+  protected void release(Grabber grabber) {
     if (defaultGrabber() == grabber)
       setDefaultGrabber(null);
-    if (trackedGrabber() == grabber)
-      resetTrackedGrabber();
-    return grabberList.remove(grabber);
+    if (trackedGrabber() == grabber || capturedGrabber() == grabber) {
+      // the other pointers keep their grabbers and previous events
+      if (isMultiPointer()) {
+        trackedGrabber = null;
+        capturedGrabber = null;
+      } else
+        resetTrackedGrabber();
+    }
+    for (int i = 0; i < pointerMap.capacity() && pointerMap.size() > 0; i++) {
+      PointerMap.Pointer pointer = pointerMap.at(i);
+      if (pointer != null && pointer.trackedGrabber == grabber)
+        pointer.trackedGrabber = null;
+    }
   }
 
   /**
@@ -80,25 +200,38 @@ public abstract class Agent {
    * @see #grabbers()
    */
   public void removeGrabbers() {
-    setDefaultGrabber(null);
-    trackedGrabber = null;
-    grabberList.clear();
+    synchronized (grabberSet) {
+      if (!isConcurrentRegistration()) {
+        setDefaultGrabber(null);
+        resetTrackedGrabber();
+      }
+      grabberSet.clear();
+    }
+    grabbersChanged();
   }
 
   /**
-   * Returns the list of grabber (and interactive-grabber) objects handled by this agent.
+   * Returns the (unmodifiable) list of grabber (and interactive-grabber) objects handled
+   * by this agent, in insertion order. When {@link #isConcurrentRegistration()} a copy
+   * of the list is returned.
    *
    * @see #removeGrabber(Grabber)
    * @see #addGrabber(Grabber)
    * @see #hasGrabber(Grabber)
    * @see #removeGrabbers()
+   * @see #pickingOrder()
    */
   public List<Grabber> grabbers() {
+    if (isConcurrentRegistration())
+      synchronized (grabberSet) {
+        return Collections.unmodifiableList(new ArrayList<Grabber>(grabberList));
+      }
     return grabberList;
   }
 
   /**
-   * Returns true if the grabber is currently in the agents {@link #grabbers()} list.
+   * Returns true if the grabber is currently in the agents {@link #grabbers()} list. This
+   * is an O(1) operation.
    *
    * @see #removeGrabber(Grabber)
    * @see #addGrabber(Grabber)
@@ -106,10 +239,9 @@ public abstract class Agent {
    * @see #removeGrabbers()
    */
   public boolean hasGrabber(Grabber grabber) {
-    for (Grabber g : grabbers())
-      if (g == grabber)
-        return true;
-    return false;
+    synchronized (grabberSet) {
+      return grabberSet.contains(grabber);
+    }
   }
 
   /**
@@ -121,11 +253,404 @@ public abstract class Agent {
    * @see #removeGrabbers()
    */
   public boolean addGrabber(Grabber grabber) {
-    if (grabber == null)
-      return false;
-    if (hasGrabber(grabber))
-      return false;
-    return grabberList.add(grabber);
+    synchronized (grabberSet) {
+      if (!grabberSet.add(grabber))
+        return false;
+    }
+    grabbersChanged();
+    return true;
+  }
+
+  /**
+   * Adds all the given grabbers in {@link #grabbers()}, in order, skipping {@code null}
+   * and already added ones. Returns the number of added grabbers.
+   *
+   * @see #removeGrabbers(Collection)
+   */
+  public int addGrabbers(Collection<? extends Grabber> grabbers) {
+    int added = 0;
+    synchronized (grabberSet) {
+      for (Grabber grabber : grabbers)
+        if (grabberSet.add(grabber))
+          added++;
+    }
+    if (added > 0)
+      grabbersChanged();
+    return added;
+  }
+
+  /**
+   * Returns {@code true} if grabbers may be added and removed (see
+   * {@link #addGrabber(Grabber)}, {@link #removeGrabber(Grabber)} and so on) from other
+   * threads than the one picking and handling the events. Default is {@code false}.
+   * <p>
+   * In this mode changes are batched into a snapshot of the {@link #pickingOrder()}
+   * which is only published, by the picking thread, at the beginning of the next
+   * {@link #updateTrackedGrabber(BogusEvent)}, {@link #handle(BogusEvent)} or
+   * {@link #handleBatch(List)} call (see {@link #publishGrabbers()}). Picking then
+   * iterates the immutable snapshot without locking. Grabbers removed in the meantime may
+   * thus still be picked until then.
+   *
+   * @see #setConcurrentRegistration(boolean)
+   */
+  public boolean isConcurrentRegistration() {
+    return concurrentRegistration;
+  }
+
+  /**
+   * Enables concurrent registration.
+   *
+   * @see #isConcurrentRegistration()
+   */
+  public void enableConcurrentRegistration() {
+    setConcurrentRegistration(true);
+  }
+
+  /**
+   * Disables concurrent registration.
+   *
+   * @see #isConcurrentRegistration()
+   */
+  public void disableConcurrentRegistration() {
+    setConcurrentRegistration(false);
+  }
+
+  /**
+   * Sets the {@link #isConcurrentRegistration()} value. Should be called from the
+   * picking thread.
+   */
+  public void setConcurrentRegistration(boolean enable) {
+    checkPickingThread();
+    synchronized (grabberSet) {
+      concurrentRegistration = enable;
+      snapshotDirty = true;
+    }
+    publishGrabbers();
+  }
+
+  /**
+   * Called after grabbers are added or removed, or their priorities change.
+   */
+  protected void grabbersChanged() {
+    if (isConcurrentRegistration())
+      snapshotDirty = true;
+    else
+      invalidatePicking();
+  }
+
+  /**
+   * Publishes the changes made to the grabbers since the previous call when
+   * {@link #isConcurrentRegistration()}: takes a new snapshot of the
+   * {@link #pickingOrder()}, resets the default, tracked and captured grabbers if they
+   * were removed, and invalidates the picking structures. Does nothing if there are no
+   * changes. Should only be called by the picking thread.
+   * <p>
+   * The {@link #updateBounds(Grabber)} and {@link #resetTrackedGrabber()} calls made from
+   * other threads (see {@link #pickingThread()}) are applied here too.
+   */
+  protected void publishGrabbers() {
+    if (handoff) {
+      handoff = false;
+      if (pointersReset) {
+        pointersReset = false;
+        pointerMap.clear();
+      }
+      Grabber grabber;
+      while ((grabber = pendingBounds.poll()) != null)
+        updateBounds(grabber);
+    }
+    if (!snapshotDirty)
+      return;
+    synchronized (grabberSet) {
+      snapshotDirty = false;
+      if (isConcurrentRegistration()) {
+        snapshot = Collections.unmodifiableList(new ArrayList<Grabber>(grabberSet.list()));
+        if (defaultGrabber != null && !grabberSet.contains(defaultGrabber))
+          defaultGrabber = null;
+        if (trackedGrabber != null && !grabberSet.contains(trackedGrabber))
+          release(trackedGrabber);
+        if (capturedGrabber != null && !grabberSet.contains(capturedGrabber))
+          release(capturedGrabber);
+        for (int i = 0; i < pointerMap.capacity() && pointerMap.size() > 0; i++) {
+          PointerMap.Pointer pointer = pointerMap.at(i);
+          if (pointer != null && pointer.trackedGrabber != null && !grabberSet.contains(pointer.trackedGrabber))
+            pointer.trackedGrabber = null;
+        }
+      } else
+        snapshot = null;
+    }
+    invalidatePicking();
+  }
+
+  /**
+   * Returns the spatial index used to short-list the {@link #grabbers()} queried by
+   * {@link #updateTrackedGrabber(BogusEvent)}. Returns {@code null} (default) if none is
+   * used.
+   *
+   * @see #setSpatialIndex(SpatialIndex)
+   */
+  public SpatialIndex spatialIndex() {
+    return spatialIndex;
+  }
+
+  /**
+   * Sets the {@link #spatialIndex()}, e.g., a {@link UniformGrid}. Pass {@code null} to
+   * query all the {@link #grabbers()}.
+   * <p>
+   * Note that picking results are the same either way, provided that the bounds reported
+   * by the grabbers are kept up-to-date (see {@link #updateBounds(Grabber)}).
+   */
+  public void setSpatialIndex(SpatialIndex index) {
+    checkPickingThread();
+    spatialIndex = index;
+    invalidatePicking();
+  }
+
+  /**
+   * Notifies the agent that the bounds of the given grabber (see {@link BoundedGrabber})
+   * have changed, e.g., because it moved. When called from other thread than the
+   * {@link #pickingThread()}, the update is handed to the picking thread, which applies it
+   * before its next pick.
+   *
+   * @see SpatialIndex#update(Grabber)
+   */
+  public void updateBounds(Grabber grabber) {
+    if (!isPickingThread()) {
+      pendingBounds.add(grabber);
+      handoff = true;
+      return;
+    }
+    pickingRevision++;
+    if (spatialIndex != null)
+      spatialIndex.update(grabber);
+  }
+
+  /**
+   * Marks the {@link #spatialIndex()}, the adaptive ordering (if any) and the event
+   * partitions to be rebuilt, and bumps the {@link #pickingRevision()}.
+   */
+  protected void invalidatePicking() {
+    pickingRevision++;
+    partitions.clear();
+    partitionLists.clear();
+    if (spatialIndex != null)
+      spatialIndex.invalidate();
+    if (adaptiveOrdering != null)
+      adaptiveOrdering.invalidate();
+  }
+
+  /**
+   * Returns the priority of the given grabber. Default is {@code 0}.
+   *
+   * @see #setGrabberPriority(Grabber, int)
+   */
+  public int grabberPriority(Grabber grabber) {
+    synchronized (grabberSet) {
+      return grabberSet.priority(grabber);
+    }
+  }
+
+  /**
+   * Sets the priority (e.g., the depth or layer) of the given grabber, which should have
+   * been added to the agent. Picking returns the top-most grabber meeting its
+   * {@link Grabber#checkIfGrabsInput(BogusEvent)} condition, i.e., higher priority
+   * grabbers are queried first and grabbers sharing the same priority are queried in
+   * {@link #grabbers()} order. This is an O(log n) operation (see
+   * {@link GrabberPrioritySet}), so there's no need to remove and re-add grabbers to
+   * sort them.
+   *
+   * @see #grabberPriority(Grabber)
+   * @see #pickingOrder()
+   */
+  public boolean setGrabberPriority(Grabber grabber, int priority) {
+    int previous;
+    synchronized (grabberSet) {
+      if (!grabberSet.contains(grabber))
+        return false;
+      previous = grabberSet.priority(grabber);
+      if (!grabberSet.setPriority(grabber, priority))
+        return true;
+    }
+    if (isConcurrentRegistration())
+      snapshotDirty = true;
+    else
+      grabberReordered(grabber, previous);
+    return true;
+  }
+
+  /**
+   * Called after the priority of the given grabber changes from {@code previous}. Same as
+   * {@link #invalidatePicking()} but the event partitions aren't rebuilt: the grabber is
+   * just moved to its new place within them (see
+   * {@link GrabberPrioritySet#reorder(List, Grabber, int)}).
+   */
+  protected void grabberReordered(Grabber grabber, int previous) {
+    pickingRevision++;
+    for (ArrayList<Grabber> partition : partitionLists.values())
+      grabberSet.reorder(partition, grabber, previous);
+    if (spatialIndex != null)
+      spatialIndex.invalidate();
+    if (adaptiveOrdering != null)
+      adaptiveOrdering.invalidate();
+  }
+
+  /**
+   * Returns the {@link #grabbers()} in the order they are queried when picking: sorted by
+   * decreasing {@link #grabberPriority(Grabber)}, grabbers sharing the same priority
+   * being sorted by insertion order. Returns {@link #grabbers()} itself when no priority
+   * has been set, and the last published snapshot when
+   * {@link #isConcurrentRegistration()}.
+   *
+   * @see #setGrabberPriority(Grabber, int)
+   */
+  public List<Grabber> pickingOrder() {
+    if (snapshot != null)
+      return snapshot;
+    return grabberSet.list();
+  }
+
+  /**
+   * Returns the picking revision, which is bumped every time the {@link #grabbers()} are
+   * added, removed or re-prioritized, or report movement (see
+   * {@link #updateBounds(Grabber)}). Picking results cached under a previous revision
+   * are discarded.
+   *
+   * @see #isPickingCache()
+   */
+  public long pickingRevision() {
+    return pickingRevision;
+  }
+
+  /**
+   * Returns {@code true} if picking results are cached (see {@link PickingCache}), so
+   * that while the pointer stays within the same {@link #pickingCacheQuantum()} cell
+   * (e.g., when it is idle or jitters within a pixel) and the
+   * {@link #pickingRevision()} doesn't change, picking takes at most a single
+   * {@link Grabber#checkIfGrabsInput(BogusEvent)} call to confirm the cached grabber.
+   * Default is {@code false}.
+   * <p>
+   * Note that grabbers should then report their movement (see
+   * {@link #updateBounds(Grabber)}), and that a cached miss (no grabber) is returned
+   * as is.
+   *
+   * @see #setPickingCache(boolean)
+   */
+  public boolean isPickingCache() {
+    return pickingCache != null;
+  }
+
+  /**
+   * Enables the picking cache.
+   *
+   * @see #isPickingCache()
+   */
+  public void enablePickingCache() {
+    setPickingCache(true);
+  }
+
+  /**
+   * Disables the picking cache.
+   *
+   * @see #isPickingCache()
+   */
+  public void disablePickingCache() {
+    setPickingCache(false);
+  }
+
+  /**
+   * Sets the {@link #isPickingCache()} value.
+   */
+  public void setPickingCache(boolean enable) {
+    checkPickingThread();
+    if (enable && pickingCache == null)
+      pickingCache = new PickingCache(1);
+    else if (!enable)
+      pickingCache = null;
+  }
+
+  /**
+   * Returns the size of the cells the event positions are quantized to by the picking
+   * cache. Default is {@code 1}, i.e., a pixel. Returns {@code 0} if the picking cache
+   * is disabled.
+   *
+   * @see #isPickingCache()
+   */
+  public float pickingCacheQuantum() {
+    return pickingCache == null ? 0 : pickingCache.quantum();
+  }
+
+  /**
+   * Sets the {@link #pickingCacheQuantum()} and enables the picking cache.
+   */
+  public void setPickingCacheQuantum(float quantum) {
+    checkPickingThread();
+    if (pickingCache == null)
+      pickingCache = new PickingCache(quantum);
+    else
+      pickingCache.setQuantum(quantum);
+  }
+
+  /**
+   * Returns {@code true} if the linear scan queries the {@link #grabbers()} in an
+   * adaptive order (see {@link AdaptiveOrdering}) instead of the list order.
+   *
+   * @see #setAdaptiveOrdering(boolean)
+   */
+  public boolean isAdaptiveOrdering() {
+    return adaptiveOrdering != null;
+  }
+
+  /**
+   * Enables adaptive ordering.
+   *
+   * @see #isAdaptiveOrdering()
+   */
+  public void enableAdaptiveOrdering() {
+    setAdaptiveOrdering(true);
+  }
+
+  /**
+   * Disables adaptive ordering.
+   *
+   * @see #isAdaptiveOrdering()
+   */
+  public void disableAdaptiveOrdering() {
+    setAdaptiveOrdering(false);
+  }
+
+  /**
+   * Sets the {@link #isAdaptiveOrdering()} value. Note that when several grabbers meet
+   * their {@link Grabber#checkIfGrabsInput(BogusEvent)} condition, the picked one then
+   * depends on the adaptive order, unless they have different priorities (see
+   * {@link #setGrabberPriority(Grabber, int)}). Adaptive ordering only applies when no
+   * {@link #spatialIndex()} handles the event, and it takes precedence over
+   * {@link #isParallelPicking()}.
+   */
+  public void setAdaptiveOrdering(boolean enable) {
+    checkPickingThread();
+    if (enable && adaptiveOrdering == null)
+      adaptiveOrdering = new AdaptiveOrdering(this);
+    else if (!enable)
+      adaptiveOrdering = null;
+  }
+
+  /**
+   * Batch feed. Add to {@code events} all the bogus events gathered by the agent since
+   * the previous call (e.g., the samples of a high-rate input device). Does nothing by
+   * default.
+   * <p>
+   * Automatically called, exactly once per cycle, by the main event loop (
+   * {@link InputHandler#handle()}) which then calls
+   * {@link #updateTrackedGrabber(BogusEvent)} and {@link #handle(BogusEvent)} on each of
+   * the added events, in order. The {@code events} list is owned (and reused) by the
+   * input handler and thus it shouldn't be kept by the agent. Single event feeds (
+   * {@link #feed()}, {@link #handleFeed()} and {@link #updateTrackedGrabberFeed()}) are
+   * still polled afterwards.
+   *
+   * @see InputHandler#handle()
+   * @see #feed()
+   */
+  protected void batchFeed(List<BogusEvent> events) {
   }
 
   /**
@@ -197,10 +722,12 @@ public abstract class Agent {
    * The first object meeting the condition will be set as the {@link #inputGrabber()} and
    * returned. Note that a null grabber means that no object in the {@link #grabbers()}
    * met the condition. A {@link #inputGrabber()} may also be enforced simply with
-   * {@link #setDefaultGrabber(Grabber)}.
+   * {@link #setDefaultGrabber(Grabber)}. No grabber is queried while the agent is
+   * captured (see {@link #capture(Grabber)}).
    *
    * @param event to query the {@link #grabbers()}
    * @return the new grabber which may be null.
+   * @see #capture(Grabber)
    * @see #setDefaultGrabber(Grabber)
    * @see #isTracking()
    * @see #handle(BogusEvent)
@@ -209,8 +736,29 @@ public abstract class Agent {
    * @see #inputGrabber()
    */
   protected Grabber updateTrackedGrabber(BogusEvent event) {
+    publishGrabbers();
+    if (isMultiPointer() && event != null)
+      return updateTrackedGrabber(pointerId(event), event);
     if (event == null || !inputHandler().isAgentRegistered(this) || !isTracking())
       return trackedGrabber();
+    // a captured grabber remains tracked, without being queried, till the gesture ends
+    if (capturedGrabber != null) {
+      trackedGrabber = capturedGrabber;
+      if (event.flushed())
+        capturedGrabber = null;
+      return trackedGrabber();
+    }
+    pickTrackedGrabber(event);
+    if (isAutoCapture() && event.fired() && trackedGrabber != null)
+      capturedGrabber = trackedGrabber;
+    return trackedGrabber();
+  }
+
+  /**
+   * Picks the {@link #trackedGrabber()}. Called by
+   * {@link #updateTrackedGrabber(BogusEvent)} when there's no {@link #capturedGrabber()}.
+   */
+  protected void pickTrackedGrabber(BogusEvent event) {
     // We first check if default grabber is tracked,
     // i.e., default grabber has the highest priority (which is good for
     // keyboards and doesn't hurt motion grabbers:
@@ -218,30 +766,637 @@ public abstract class Agent {
     if (dG != null)
       if (dG.checkIfGrabsInput(event)) {
         trackedGrabber = dG;
-        return trackedGrabber();
+        return;
       }
     // then if tracked grabber remains the same:
     Grabber tG = trackedGrabber();
     if (tG != null)
       if (tG.checkIfGrabsInput(event))
-        return trackedGrabber();
+        return;
     // pick the first otherwise
-    trackedGrabber = null;
-    for (Grabber grabber : grabberList)
-      if (grabber != dG && grabber != tG)
-        if (grabber.checkIfGrabsInput(event)) {
-          trackedGrabber = grabber;
-          return trackedGrabber();
+    trackedGrabber = pickGrabber(event, dG, tG);
+  }
+
+  /**
+   * Returns {@code true} if the agent tracks a grabber per pointer (e.g., per finger of a
+   * multi-touch surface) instead of a single {@link #trackedGrabber()}. Default is
+   * {@code false}.
+   * <p>
+   * Pointers are identified by their {@link #pointerId(BogusEvent)}. Each pointer keeps
+   * its own tracked grabber and previous event (see {@link #trackedGrabber(int)} and
+   * {@link #previousEvent(int)}) and {@link #handle(BogusEvent)} sends the event to the
+   * {@link #inputGrabber(int)} of its pointer. The {@link #trackedGrabber()} is the one of
+   * the last tracked pointer. Note that {@link #capture(Grabber)} is ignored in this mode.
+   *
+   * @see #setMultiPointer(boolean)
+   * @see #handleBatch(List)
+   */
+  public boolean isMultiPointer() {
+    return multiPointer;
+  }
+
+  /**
+   * Enables multi-pointer mode.
+   *
+   * @see #isMultiPointer()
+   */
+  public void enableMultiPointer() {
+    setMultiPointer(true);
+  }
+
+  /**
+   * Disables multi-pointer mode.
+   *
+   * @see #isMultiPointer()
+   */
+  public void disableMultiPointer() {
+    setMultiPointer(false);
+  }
+
+  /**
+   * Sets the {@link #isMultiPointer()} value.
+   */
+  public void setMultiPointer(boolean enable) {
+    checkPickingThread();
+    multiPointer = enable;
+    resetTrackedGrabber();
+  }
+
+  /**
+   * Returns the id of the pointer which generated the event. Returns its
+   * {@link BogusEvent#id()} by default. Override it if your events carry an explicit
+   * pointer id.
+   *
+   * @see #isMultiPointer()
+   */
+  public int pointerId(BogusEvent event) {
+    return event.id();
+  }
+
+  /**
+   * Returns the number of tracked pointers.
+   *
+   * @see #isMultiPointer()
+   */
+  public int pointers() {
+    checkPickingThread();
+    return pointerMap.size();
+  }
+
+  /**
+   * Returns the grabber tracked by the given pointer. It may be null.
+   *
+   * @see #isMultiPointer()
+   */
+  public Grabber trackedGrabber(int pointerId) {
+    checkPickingThread();
+    PointerMap.Pointer pointer = pointerMap.get(pointerId);
+    return pointer == null ? null : pointer.trackedGrabber;
+  }
+
+  /**
+   * Returns the last event tracked for the given pointer. It may be null.
+   *
+   * @see #isMultiPointer()
+   */
+  public BogusEvent previousEvent(int pointerId) {
+    checkPickingThread();
+    PointerMap.Pointer pointer = pointerMap.get(pointerId);
+    return pointer == null ? null : pointer.previousEvent;
+  }
+
+  /**
+   * Same as {@link #inputGrabber()} but for the given pointer: returns its
+   * {@link #trackedGrabber(int)} if non null, and the {@link #defaultGrabber()}
+   * otherwise.
+   */
+  public Grabber inputGrabber(int pointerId) {
+    checkPickingThread();
+    Grabber grabber = trackedGrabber(pointerId);
+    return grabber != null ? grabber : defaultGrabber();
+  }
+
+  /**
+   * Forgets the given pointer. Automatically called when a pointer
+   * {@link BogusEvent#flushed()} event is handled.
+   */
+  public void releasePointer(int pointerId) {
+    checkPickingThread();
+    pointerMap.remove(pointerId);
+  }
+
+  /**
+   * Multi-pointer version of {@link #updateTrackedGrabber(BogusEvent)} which updates the
+   * grabber tracked by the given pointer.
+   *
+   * @see #isMultiPointer()
+   */
+  protected Grabber updateTrackedGrabber(int pointerId, BogusEvent event) {
+    publishGrabbers();
+    PointerMap.Pointer pointer = pointerMap.obtain(pointerId);
+    if (event != null && inputHandler().isAgentRegistered(this) && isTracking()) {
+      Grabber dG = defaultGrabber();
+      if (dG != null && dG.checkIfGrabsInput(event))
+        pointer.trackedGrabber = dG;
+      else {
+        Grabber tG = pointer.trackedGrabber;
+        if (tG == null || !tG.checkIfGrabsInput(event))
+          pointer.trackedGrabber = pickGrabber(event, dG, tG);
+      }
+      pointer.previousEvent = event;
+    }
+    trackedGrabber = pointer.trackedGrabber;
+    return trackedGrabber;
+  }
+
+  /**
+   * Calls {@link #updateTrackedGrabber(BogusEvent)} and {@link #handle(BogusEvent)} on
+   * each event, in order. Called by the main event loop on the events gathered by
+   * {@link #batchFeed(List)}.
+   * <p>
+   * When {@link #isMultiPointer()} the events of the different pointers which need to be
+   * picked are picked together, in a single pass over the {@link #pickingOrder()}: each
+   * grabber is then queried with all the pending events before moving to the next one.
+   * Results are the same as when picking each event on its own.
+   */
+  protected void handleBatch(List<BogusEvent> events) {
+    publishGrabbers();
+    if (!isMultiPointer() || events.size() < 2) {
+      for (int i = 0; i < events.size(); i++) {
+        BogusEvent event = events.get(i);
+        updateTrackedGrabber(event);
+        handle(event);
+      }
+      return;
+    }
+    int size = events.size();
+    if (batchGrabbers.length < size) {
+      batchGrabbers = new Grabber[size];
+      pendingEvents = new int[size];
+    }
+    boolean tracking = inputHandler().isAgentRegistered(this) && isTracking();
+    Grabber dG = defaultGrabber();
+    int pendingCount = 0;
+    for (int i = 0; i < size; i++) {
+      BogusEvent event = events.get(i);
+      if (event == null)
+        continue;
+      PointerMap.Pointer pointer = pointerMap.obtain(pointerId(event));
+      // picking results of this pointer are needed right now
+      if (pointer.pending >= 0) {
+        pickBatch(events, pendingCount, dG);
+        pendingCount = 0;
+      }
+      if (tracking) {
+        if (dG != null && dG.checkIfGrabsInput(event))
+          pointer.trackedGrabber = dG;
+        else if (pointer.trackedGrabber == null || !pointer.trackedGrabber.checkIfGrabsInput(event)) {
+          pointer.pending = i;
+          pendingEvents[pendingCount++] = i;
         }
-    return trackedGrabber();
+        pointer.previousEvent = event;
+      }
+      batchGrabbers[i] = pointer.trackedGrabber;
+      if (event.flushed()) {
+        if (pointer.pending >= 0) {
+          pickBatch(events, pendingCount, dG);
+          pendingCount = 0;
+        }
+        releasePointer(pointer.id());
+      }
+    }
+    pickBatch(events, pendingCount, dG);
+    for (int i = 0; i < size; i++) {
+      BogusEvent event = events.get(i);
+      if (event != null)
+        handle(event, batchGrabbers[i] != null ? batchGrabbers[i] : defaultGrabber());
+      batchGrabbers[i] = null;
+    }
+  }
+
+  /**
+   * Picks the {@code count} pending events of a {@link #handleBatch(List)} call together.
+   * A single pass over the grabbers is shared by all the events when they would be picked
+   * by the same serial linear scan, i.e., when they are of the same class (see
+   * {@link #partition(Class)}) and neither the {@link #spatialIndex()}, the adaptive
+   * ordering, the picking cache nor parallel picking are used. Otherwise each event is
+   * picked on its own with {@link #pickGrabber(BogusEvent, Grabber, Grabber)}.
+   */
+  protected void pickBatch(List<BogusEvent> events, int count, Grabber dG) {
+    if (count == 0)
+      return;
+    boolean shared = count > 1 && spatialIndex == null && adaptiveOrdering == null && pickingCache == null
+        && parallelPicker == null;
+    Class<? extends BogusEvent> eventClass = events.get(pendingEvents[0]).getClass();
+    for (int j = 1; j < count && shared; j++)
+      shared = events.get(pendingEvents[j]).getClass() == eventClass;
+    int unresolved = count;
+    if (shared)
+      for (Grabber grabber : partitioning ? partition(eventClass) : pickingOrder()) {
+        for (int j = 0; j < count; j++) {
+          int i = pendingEvents[j];
+          if (i < 0)
+            continue;
+          BogusEvent event = events.get(i);
+          PointerMap.Pointer pointer = pointerMap.get(pointerId(event));
+          if (grabber != dG && grabber != pointer.trackedGrabber && grabber.checkIfGrabsInput(event)) {
+            resolve(pointer, i, grabber);
+            pendingEvents[j] = -1;
+            unresolved--;
+          }
+        }
+        if (unresolved == 0)
+          return;
+      }
+    for (int j = 0; j < count; j++) {
+      int i = pendingEvents[j];
+      if (i < 0)
+        continue;
+      BogusEvent event = events.get(i);
+      PointerMap.Pointer pointer = pointerMap.get(pointerId(event));
+      resolve(pointer, i, shared ? null : pickGrabber(event, dG, pointer.trackedGrabber));
+    }
+  }
+
+  protected void resolve(PointerMap.Pointer pointer, int event, Grabber grabber) {
+    pointer.trackedGrabber = grabber;
+    pointer.pending = -1;
+    batchGrabbers[event] = grabber;
+    trackedGrabber = grabber;
+  }
+
+  /**
+   * Returns the grabber which captured the agent (see {@link #capture(Grabber)}), or
+   * {@code null} if none did.
+   */
+  public Grabber capturedGrabber() {
+    return capturedGrabber;
+  }
+
+  /**
+   * Returns {@code true} if a grabber captured the agent.
+   *
+   * @see #capture(Grabber)
+   */
+  public boolean isCaptured() {
+    return capturedGrabber != null;
+  }
+
+  /**
+   * Makes the given grabber capture the agent, e.g., when it receives the
+   * {@link BogusEvent#fired()} event starting a drag. The grabber is then set as the
+   * {@link #trackedGrabber()} and {@link #updateTrackedGrabber(BogusEvent)} returns it
+   * right away, without querying any {@link Grabber#checkIfGrabsInput(BogusEvent)}
+   * condition, till the next {@link BogusEvent#flushed()} event (which is still sent to
+   * the grabber) or a {@link #releaseCapture()} call. Hence fast drags never lose their
+   * target.
+   * <p>
+   * Returns {@code false} (and does nothing) if the grabber hasn't been added to the
+   * agent or if tracking is disabled.
+   *
+   * @see #setAutoCapture(boolean)
+   */
+  public boolean capture(Grabber grabber) {
+    if (grabber == null || !isTracking() || !hasGrabber(grabber))
+      return false;
+    capturedGrabber = grabber;
+    trackedGrabber = grabber;
+    return true;
+  }
+
+  /**
+   * Releases the {@link #capturedGrabber()} (if any) which remains the
+   * {@link #trackedGrabber()} till the next {@link #updateTrackedGrabber(BogusEvent)}
+   * call.
+   *
+   * @see #capture(Grabber)
+   */
+  public void releaseCapture() {
+    capturedGrabber = null;
+  }
+
+  /**
+   * Returns {@code true} if the grabber tracked on a {@link BogusEvent#fired()} event
+   * automatically captures the agent. Default is {@code false}.
+   *
+   * @see #capture(Grabber)
+   */
+  public boolean isAutoCapture() {
+    return autoCapture;
+  }
+
+  /**
+   * Enables auto capture.
+   *
+   * @see #isAutoCapture()
+   */
+  public void enableAutoCapture() {
+    setAutoCapture(true);
+  }
+
+  /**
+   * Disables auto capture.
+   *
+   * @see #isAutoCapture()
+   */
+  public void disableAutoCapture() {
+    setAutoCapture(false);
+  }
+
+  /**
+   * Sets the {@link #isAutoCapture()} value.
+   */
+  public void setAutoCapture(boolean enable) {
+    autoCapture = enable;
+  }
+
+  /**
+   * Returns the first grabber in {@link #pickingOrder()} (other than {@code dG} and
+   * {@code tG} which have already been queried) meeting the
+   * {@link Grabber#checkIfGrabsInput(BogusEvent)} condition, or {@code null} if none
+   * does. Only the candidates short-listed by the {@link #spatialIndex()} are queried
+   * when the index handles the event (unless none of them grabs the event and the
+   * query isn't {@link SpatialIndex#isExhaustive()}). Otherwise, the grabbers are queried in the
+   * {@link #isAdaptiveOrdering()} order, if enabled, or only those in the event
+   * {@link #partition(Class)}, if {@link #isEventPartitioning()}. Repeated queries are
+   * answered from the picking cache, if {@link #isPickingCache()}.
+   *
+   * @see #updateTrackedGrabber(BogusEvent)
+   */
+  protected Grabber pickGrabber(BogusEvent event, Grabber dG, Grabber tG) {
+    if (pickingCache == null)
+      return queryGrabbers(event, dG, tG);
+    if (pickingCache.lookup(event, dG, tG, pickingRevision)) {
+      Grabber grabber = pickingCache.result();
+      if (grabber == null || grabber.checkIfGrabsInput(event))
+        return grabber;
+    }
+    Grabber grabber = queryGrabbers(event, dG, tG);
+    pickingCache.store(event, dG, tG, pickingRevision, grabber);
+    return grabber;
+  }
+
+  /**
+   * Uncached {@link #pickGrabber(BogusEvent, Grabber, Grabber)} query.
+   */
+  protected Grabber queryGrabbers(BogusEvent event, Grabber dG, Grabber tG) {
+    if (spatialIndex != null) {
+      if (spatialIndex.isDirty())
+        spatialIndex.build(pickingOrder());
+      int count = spatialIndex.query(event);
+      if (count >= 0) {
+        for (int i = 0; i < count; i++) {
+          Grabber grabber = spatialIndex.candidate(i);
+          if (grabber != dG && grabber != tG)
+            if (grabber.checkIfGrabsInput(event))
+              return grabber;
+        }
+        if (spatialIndex.isExhaustive())
+          return null;
+      }
+    }
+    if (adaptiveOrdering != null) {
+      int count = adaptiveOrdering.update();
+      for (int i = 0; i < count; i++) {
+        Grabber grabber = adaptiveOrdering.grabber(i);
+        if (grabber != dG && grabber != tG) {
+          long start = System.nanoTime();
+          boolean hit = grabber.checkIfGrabsInput(event);
+          adaptiveOrdering.record(i, hit, System.nanoTime() - start);
+          if (hit)
+            return grabber;
+        }
+      }
+      return null;
+    }
+    if (partitioning) {
+      List<Grabber> partition = partition(event.getClass());
+      if (parallelPicker != null && partition.size() >= parallelPickingThreshold)
+        return parallelPicker.pick(partition, event, dG, tG);
+      for (int i = 0; i < partition.size(); i++) {
+        Grabber grabber = partition.get(i);
+        if (grabber != dG && grabber != tG)
+          if (grabber.checkIfGrabsInput(event))
+            return grabber;
+      }
+      return null;
+    }
+    if (parallelPicker != null && pickingOrder().size() >= parallelPickingThreshold)
+      return parallelPicker.pick(pickingOrder(), event, dG, tG);
+    for (Grabber grabber : snapshot != null ? snapshot : grabberSet)
+      if (grabber != dG && grabber != tG)
+        if (grabber.checkIfGrabsInput(event))
+          return grabber;
+    return null;
+  }
+
+  /**
+   * Returns the grabbers in {@link #pickingOrder()} which may grab events of the given
+   * class, i.e., all of them but the {@link SelectiveGrabber}s which
+   * {@link SelectiveGrabber#canGrab(Class)} returns {@code false}. Partitions are built
+   * lazily, once per event class, and rebuilt after the {@link #grabbers()} change.
+   *
+   * @see #isEventPartitioning()
+   */
+  public List<Grabber> partition(Class<? extends BogusEvent> eventClass) {
+    checkPickingThread();
+    List<Grabber> partition = partitions.get(eventClass);
+    if (partition == null) {
+      ArrayList<Grabber> list = new ArrayList<Grabber>();
+      for (Grabber grabber : pickingOrder())
+        if (!(grabber instanceof SelectiveGrabber) || ((SelectiveGrabber) grabber).canGrab(eventClass))
+          list.add(grabber);
+      partition = Collections.unmodifiableList(list);
+      partitions.put(eventClass, partition);
+      partitionLists.put(eventClass, list);
+    }
+    return partition;
+  }
+
+  /**
+   * Returns {@code true} if the linear scan only queries the grabbers that may grab the
+   * event (see {@link #partition(Class)}). Default is {@code true}. Note that picking
+   * results are the same either way.
+   *
+   * @see #setEventPartitioning(boolean)
+   */
+  public boolean isEventPartitioning() {
+    return partitioning;
+  }
+
+  /**
+   * Enables event partitioning.
+   *
+   * @see #isEventPartitioning()
+   */
+  public void enableEventPartitioning() {
+    setEventPartitioning(true);
+  }
+
+  /**
+   * Disables event partitioning.
+   *
+   * @see #isEventPartitioning()
+   */
+  public void disableEventPartitioning() {
+    setEventPartitioning(false);
+  }
+
+  /**
+   * Sets the {@link #isEventPartitioning()} value.
+   */
+  public void setEventPartitioning(boolean enable) {
+    checkPickingThread();
+    partitioning = enable;
+    partitions.clear();
+    partitionLists.clear();
+  }
+
+  /**
+   * Returns {@code true} if the {@link #grabbers()} are queried in parallel when there
+   * are at least {@link #parallelPickingThreshold()} of them and no
+   * {@link #spatialIndex()} handles the event.
+   *
+   * @see #setParallelPicking(boolean)
+   */
+  public boolean isParallelPicking() {
+    return parallelPicker != null;
+  }
+
+  /**
+   * Enables parallel picking.
+   *
+   * @see #isParallelPicking()
+   */
+  public void enableParallelPicking() {
+    setParallelPicking(true);
+  }
+
+  /**
+   * Disables parallel picking.
+   *
+   * @see #isParallelPicking()
+   */
+  public void disableParallelPicking() {
+    setParallelPicking(false);
+  }
+
+  /**
+   * Sets the {@link #isParallelPicking()} value. Picking results are the same either way
+   * (see {@link ParallelPicker}), but the grabbers
+   * {@link Grabber#checkIfGrabsInput(BogusEvent)} should then be thread-safe.
+   */
+  public void setParallelPicking(boolean enable) {
+    checkPickingThread();
+    if (enable && parallelPicker == null)
+      parallelPicker = new ParallelPicker();
+    else if (!enable)
+      parallelPicker = null;
+  }
+
+  /**
+   * Returns the minimum number of {@link #grabbers()} for them to be queried in parallel.
+   * Default is {@link ParallelPicker#DEFAULT_THRESHOLD}.
+   *
+   * @see #isParallelPicking()
+   */
+  public int parallelPickingThreshold() {
+    return parallelPickingThreshold;
+  }
+
+  /**
+   * Sets the {@link #parallelPickingThreshold()}.
+   */
+  public void setParallelPickingThreshold(int threshold) {
+    parallelPickingThreshold = Math.max(1, threshold);
   }
 
   /**
    * Returns the sensitivities used in {@link #handle(BogusEvent)} to
-   * {@link remixlab.bias.event.MotionEvent#modulate(float[])}.
+   * {@link remixlab.bias.event.MotionEvent#modulate(float[])}: the ones set for the event
+   * shortcut with {@link #setSensitivities(MotionShortcut, float...)} if any, or the
+   * default ones otherwise (see {@link #setSensitivities(float...)}).
+   * <p>
+   * The returned array is cached by the agent and thus it shouldn't be modified. No
+   * allocation takes place.
    */
   public float[] sensitivities(MotionEvent event) {
-    return new float[]{1f, 1f, 1f, 1f, 1f, 1f};
+    for (int i = 0; i < sensitivityCount; i++)
+      if (sensitivityIds[i] == event.id() && sensitivityModifiers[i] == event.modifiers())
+        return sensitivityVectors[i];
+    return sensitivities;
+  }
+
+  /**
+   * Sets the default {@link #sensitivities(MotionEvent)}, which are all {@code 1} by
+   * default. Missing values are set to {@code 1}.
+   */
+  public void setSensitivities(float... sensitivities) {
+    checkPickingThread();
+    this.sensitivities = sensitivityVector(sensitivities);
+  }
+
+  /**
+   * Sets the {@link #sensitivities(MotionEvent)} of the events having the given shortcut.
+   * Missing values are set to {@code 1}.
+   *
+   * @see #removeSensitivities(MotionShortcut)
+   */
+  public void setSensitivities(MotionShortcut shortcut, float... sensitivities) {
+    checkPickingThread();
+    float[] vector = sensitivityVector(sensitivities);
+    for (int i = 0; i < sensitivityCount; i++)
+      if (sensitivityIds[i] == shortcut.id() && sensitivityModifiers[i] == shortcut.modifiers()) {
+        sensitivityVectors[i] = vector;
+        return;
+      }
+    if (sensitivityCount == sensitivityIds.length) {
+      sensitivityIds = Arrays.copyOf(sensitivityIds, sensitivityCount * 2 + 1);
+      sensitivityModifiers = Arrays.copyOf(sensitivityModifiers, sensitivityCount * 2 + 1);
+      sensitivityVectors = Arrays.copyOf(sensitivityVectors, sensitivityCount * 2 + 1);
+    }
+    sensitivityIds[sensitivityCount] = shortcut.id();
+    sensitivityModifiers[sensitivityCount] = shortcut.modifiers();
+    sensitivityVectors[sensitivityCount++] = vector;
+  }
+
+  /**
+   * Removes the sensitivities set for the given shortcut, so that its events use the
+   * default ones.
+   *
+   * @see #setSensitivities(MotionShortcut, float...)
+   */
+  public void removeSensitivities(MotionShortcut shortcut) {
+    checkPickingThread();
+    for (int i = 0; i < sensitivityCount; i++)
+      if (sensitivityIds[i] == shortcut.id() && sensitivityModifiers[i] == shortcut.modifiers()) {
+        sensitivityCount--;
+        sensitivityIds[i] = sensitivityIds[sensitivityCount];
+        sensitivityModifiers[i] = sensitivityModifiers[sensitivityCount];
+        sensitivityVectors[i] = sensitivityVectors[sensitivityCount];
+        sensitivityVectors[sensitivityCount] = null;
+        return;
+      }
+  }
+
+  protected static float[] sensitivityVector(float[] sensitivities) {
+    float[] vector = {1f, 1f, 1f, 1f, 1f, 1f};
+    if (sensitivities != null)
+      System.arraycopy(sensitivities, 0, vector, 0, Math.min(sensitivities.length, vector.length));
+    return vector;
+  }
+
+  /**
+   * Returns {@code true} if all the given sensitivities are {@code 1}, in which case
+   * {@link #handle(BogusEvent)} doesn't modulate the event.
+   */
+  public static boolean isIdentity(float[] sensitivities) {
+    if (sensitivities == null)
+      return true;
+    for (int i = 0; i < sensitivities.length; i++)
+      if (sensitivities[i] != 1f)
+        return false;
+    return true;
   }
 
   /**
@@ -257,20 +1412,62 @@ public abstract class Agent {
    * @see #updateTrackedGrabber(BogusEvent)
    */
   protected boolean handle(BogusEvent event) {
+    publishGrabbers();
+    if (isMultiPointer() && event != null) {
+      int pointerId = pointerId(event);
+      Grabber inputGrabber = inputGrabber(pointerId);
+      // the gesture of this pointer is over
+      if (event.flushed())
+        releasePointer(pointerId);
+      return handle(event, inputGrabber);
+    }
+    return handle(event, inputGrabber());
+  }
+
+  /**
+   * Same as {@link #handle(BogusEvent)} but enqueues the tuple on the given grabber,
+   * instead of the {@link #inputGrabber()}.
+   */
+  protected boolean handle(BogusEvent event, Grabber inputGrabber) {
     if (event == null || !handler.isAgentRegistered(this) || inputHandler() == null)
       return false;
     if (event instanceof MotionEvent)
       if (((MotionEvent) event).isAbsolute())
         if (event.isNull() && !event.flushed())
           return false;
-    if (event instanceof MotionEvent)
-      ((MotionEvent) event).modulate(sensitivities((MotionEvent) event));
-    Grabber inputGrabber = inputGrabber();
+    if (event instanceof MotionEvent) {
+      float[] sensitivities = sensitivities((MotionEvent) event);
+      if (!isIdentity(sensitivities))
+        ((MotionEvent) event).modulate(sensitivities);
+    }
     if (inputGrabber != null)
-      return inputHandler().enqueueEventTuple(new EventGrabberTuple(event, inputGrabber));
+      return inputHandler().enqueueEventTuple(event, inputGrabber, eventPriority(event));
     return false;
   }
 
+  /**
+   * Returns the {@link EventGrabberTuple#priority()} of the tuples enqueued from the
+   * given event by {@link #handle(BogusEvent)}. Returns the priority set with
+   * {@link #setEventPriority(int)}, or the
+   * {@link EventGrabberTuple#defaultPriority(BogusEvent)} if none has been set.
+   * <p>
+   * Priorities are only meaningful when the {@link InputHandler#eventTupleQueue()} is an
+   * {@link EventGrabberTupleLanes} instance.
+   */
+  public int eventPriority(BogusEvent event) {
+    return eventPriority < 0 ? EventGrabberTuple.defaultPriority(event) : eventPriority;
+  }
+
+  /**
+   * Sets the priority of all the tuples enqueued by this agent. Pass a negative value to
+   * restore the {@link EventGrabberTuple#defaultPriority(BogusEvent)}.
+   *
+   * @see #eventPriority(BogusEvent)
+   */
+  public void setEventPriority(int priority) {
+    eventPriority = priority < 0 ? -1 : priority;
+  }
+
   /**
    * If {@link #trackedGrabber()} is non null, returns it. Otherwise returns the
    * {@link #defaultGrabber()}.
@@ -322,7 +1519,7 @@ public abstract class Agent {
   public void setTracking(boolean enable) {
     agentTrckn = enable;
     if (!isTracking())
-      trackedGrabber = null;
+      resetTrackedGrabber();
   }
 
   /**
@@ -383,9 +1580,64 @@ public abstract class Agent {
   }
 
   /**
-   * Sets the {@link #trackedGrabber()} to {@code null}.
+   * Sets the {@link #trackedGrabber()} to {@code null}, releasing the capture (see
+   * {@link #capture(Grabber)}).
    */
   public void resetTrackedGrabber() {
     trackedGrabber = null;
+    capturedGrabber = null;
+    if (isPickingThread())
+      pointerMap.clear();
+    else {
+      pointersReset = true;
+      handoff = true;
+    }
+  }
+
+  /**
+   * Returns the thread picking the grabbers (i.e., calling
+   * {@link #updateTrackedGrabber(BogusEvent)}) when it's not the one performing the event
+   * tuples, i.e., the input handler input thread while it's running (see
+   * {@link InputHandler#startInputThread(float)}). Returns {@code null} otherwise.
+   * <p>
+   * While there's a picking thread, the agent is in {@link #isConcurrentRegistration()}
+   * mode, and the following threading contract holds: grabbers may be added, removed or
+   * re-prioritized, and the {@link #inputGrabber()}, {@link #trackedGrabber()},
+   * {@link #defaultGrabber()} and {@link #capturedGrabber()} may be queried and set, from
+   * any thread; {@link #updateBounds(Grabber)} and {@link #resetTrackedGrabber()} calls
+   * are handed to the picking thread; while the picking configuration (e.g.,
+   * {@link #setSpatialIndex(SpatialIndex)}), the multi-pointer state and the
+   * sensitivities may only be accessed from the picking thread. Otherwise an
+   * {@code IllegalStateException} is thrown.
+   */
+  public Thread pickingThread() {
+    return pickingThread;
+  }
+
+  /**
+   * Internal use. Called by the input handler when its input thread starts (or stops)
+   * picking the grabbers of this agent.
+   */
+  protected void setPickingThread(Thread thread) {
+    pickingThread = thread;
+  }
+
+  /**
+   * Returns {@code true} if there's no {@link #pickingThread()} or if it is the current
+   * thread.
+   */
+  protected boolean isPickingThread() {
+    Thread thread = pickingThread;
+    return thread == null || thread == Thread.currentThread();
+  }
+
+  /**
+   * Throws an {@code IllegalStateException} if not {@link #isPickingThread()}.
+   */
+  protected void checkPickingThread() {
+    if (!isPickingThread())
+      throw new IllegalStateException(
+          getClass().getSimpleName() + " picking state may only be accessed from its picking thread while the "
+              + "input thread is running. Stop it first (see InputHandler.stopInputThread())");
   }
 }
@@ -0,0 +1,120 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+/**
+ * Open addressing hash map from packed shortcut keys (see {@link Shortcut#packedKey()})
+ * to bindings, which allows a {@link Profile} to look up the binding of an event from its
+ * {@link BogusEvent#shortcutKey()}, i.e., without allocating its {@link Shortcut}.
+ */
+public class BindingTable<V> {
+  protected long[] keys;
+  protected Object[] values;
+  protected int size, mask;
+
+  public BindingTable() {
+    keys = new long[16];
+    values = new Object[16];
+    mask = 15;
+  }
+
+  protected static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  protected int slot(long key) {
+    int i = hash(key) & mask;
+    while (values[i] != null && keys[i] != key)
+      i = (i + 1) & mask;
+    return i;
+  }
+
+  /**
+   * Returns the value bound to the given key, or {@code null} if there's none.
+   */
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    return (V) values[slot(key)];
+  }
+
+  /**
+   * Binds the (non-null) value to the given key, which should be other than
+   * {@link Shortcut#NO_KEY}.
+   */
+  public void put(long key, V value) {
+    int i = slot(key);
+    if (values[i] == null) {
+      if ((size + 1) * 2 > values.length) {
+        grow();
+        i = slot(key);
+      }
+      size++;
+    }
+    keys[i] = key;
+    values[i] = value;
+  }
+
+  /**
+   * Removes the value bound to the given key and returns it, or returns {@code null} if
+   * there's none.
+   */
+  @SuppressWarnings("unchecked")
+  public V remove(long key) {
+    int i = slot(key);
+    Object value = values[i];
+    if (value == null)
+      return null;
+    values[i] = null;
+    size--;
+    // backward shift deletion, so that probe sequences remain unbroken
+    for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+      int home = hash(keys[j]) & mask;
+      if (((j - home) & mask) >= ((j - i) & mask)) {
+        keys[i] = keys[j];
+        values[i] = values[j];
+        values[j] = null;
+        i = j;
+      }
+    }
+    return (V) value;
+  }
+
+  protected void grow() {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    keys = new long[oldKeys.length << 1];
+    values = new Object[oldValues.length << 1];
+    mask = values.length - 1;
+    for (int i = 0; i < oldValues.length; i++)
+      if (oldValues[i] != null) {
+        int j = slot(oldKeys[i]);
+        keys[j] = oldKeys[i];
+        values[j] = oldValues[i];
+      }
+  }
+
+  /**
+   * Returns the number of bindings.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Removes all the bindings.
+   */
+  public void clear() {
+    for (int i = 0; i < values.length; i++)
+      values[i] = null;
+    size = 0;
+  }
+}
@@ -167,6 +167,16 @@ public class BogusEvent implements Copyable {
     return new Shortcut(modifiers(), id());
   }
 
+  /**
+   * Returns the {@link Shortcut#packedKey()} of the {@link #shortcut()}, without
+   * allocating it, or {@link Shortcut#NO_KEY} if the shortcut can't be packed. Custom
+   * event classes overriding {@link #shortcut()} should override this method too (e.g.,
+   * returning {@link Shortcut#NO_KEY}).
+   */
+  public long shortcutKey() {
+    return getClass() == BogusEvent.class ? Shortcut.packKey(Shortcut.TAG, modifiers(), id(), 0) : Shortcut.NO_KEY;
+  }
+
   /**
    * @return the modifiers defining the event {@link Shortcut}.
    */
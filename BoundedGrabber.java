@@ -0,0 +1,32 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+/**
+ * A {@link Grabber} aware of its 2D bounds, i.e., the region (in the coordinate space of
+ * positional events such as {@link remixlab.bias.event.ClickEvent}s and relative
+ * {@link remixlab.bias.event.DOF2Event}s) outside of which its
+ * {@link #checkIfGrabsInput(BogusEvent)} condition is never met.
+ * <p>
+ * Bounded grabbers may be spatially indexed (see {@link UniformGrid} and
+ * {@link Agent#setSpatialIndex(SpatialIndex)}) so that only those near the event
+ * position are queried.
+ */
+public interface BoundedGrabber extends Grabber {
+  /**
+   * Fills {@code rect} with the grabber bounds: {@code minX, minY, maxX, maxY}. Returns
+   * {@code false} if the bounds aren't currently available, in which case the grabber is
+   * always queried.
+   *
+   * @see Agent#updateBounds(Grabber)
+   */
+  boolean bounds(float[] rect);
+}
@@ -0,0 +1,31 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+/**
+ * A {@link Grabber} aware of its 3D axis-aligned bounding box, i.e., the volume outside
+ * of which its {@link #checkIfGrabsInput(BogusEvent)} condition is never met. The box
+ * should be expressed in the space of the points (or rays) obtained from the
+ * {@link remixlab.bias.event.DOF3Event}s and {@link remixlab.bias.event.DOF6Event}s it's
+ * picked with.
+ *
+ * @see BoundingVolumeHierarchy
+ */
+public interface BoundingBoxGrabber extends Grabber {
+  /**
+   * Fills {@code box} with the grabber bounding box:
+   * {@code minX, minY, minZ, maxX, maxY, maxZ}. Returns {@code false} if the box isn't
+   * currently available, in which case the grabber is always queried.
+   *
+   * @see Agent#updateBounds(Grabber)
+   */
+  boolean boundingBox(float[] box);
+}
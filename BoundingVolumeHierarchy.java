@@ -0,0 +1,375 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+import remixlab.bias.event.DOF3Event;
+import remixlab.bias.event.DOF6Event;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * A {@link SpatialIndex} implemented as a bounding volume hierarchy (a binary tree of
+ * axis-aligned boxes) over the {@link BoundingBoxGrabber}s. Other grabbers are always
+ * queried.
+ * <p>
+ * By default relative {@link DOF3Event}s and {@link DOF6Event}s are handled as points
+ * (see {@link #queryPoint(float, float, float)}). Override {@link #collect(BogusEvent)}
+ * and call {@link #collectRay(float, float, float, float, float, float)} instead to pick
+ * grabbers with a ray, e.g., casted from the camera through the event position.
+ * <p>
+ * When a grabber moves, {@link Agent#updateBounds(Grabber)} refits the boxes from its
+ * leaf up to the root, without rebuilding the tree. Since many refits may degrade the
+ * tree quality, {@link #invalidate()} it from time to time to have it rebuilt.
+ */
+public class BoundingVolumeHierarchy extends SpatialIndex {
+  public static final int LEAF_SIZE = 4;
+
+  // per grabber (indexed by snapshot position) boxes and leaves
+  protected float[] boxes;
+  protected int[] leaves;
+  protected IdentityHashMap<Grabber, Integer> positions;
+  // bounded grabbers, sorted so that leaves hold contiguous ranges
+  protected int[] items;
+  protected int itemCount;
+  // nodes
+  protected float[] nodeBoxes;
+  protected int[] left, right, first, count, parent;
+  protected int nodeCount;
+  protected int[] stack;
+  protected float[] box;
+
+  public BoundingVolumeHierarchy() {
+    boxes = new float[96];
+    leaves = new int[16];
+    positions = new IdentityHashMap<Grabber, Integer>();
+    items = new int[16];
+    nodeBoxes = new float[96];
+    left = new int[16];
+    right = new int[16];
+    first = new int[16];
+    count = new int[16];
+    parent = new int[16];
+    stack = new int[64];
+    box = new float[6];
+  }
+
+  @Override
+  protected void buildIndex() {
+    if (leaves.length < grabberCount) {
+      leaves = new int[grabberCount];
+      boxes = new float[grabberCount * 6];
+      items = new int[grabberCount];
+    }
+    positions.clear();
+    itemCount = 0;
+    for (int i = 0; i < grabberCount; i++) {
+      positions.put(grabbers[i], i);
+      leaves[i] = -1;
+      if (grabbers[i] instanceof BoundingBoxGrabber && ((BoundingBoxGrabber) grabbers[i]).boundingBox(box)) {
+        System.arraycopy(box, 0, boxes, i * 6, 6);
+        items[itemCount++] = i;
+      } else
+        addUnbounded(i);
+    }
+    nodeCount = 0;
+    if (itemCount > 0)
+      build(0, itemCount, -1);
+  }
+
+  /**
+   * Builds the subtree holding {@code items[start, end)} and returns its root.
+   */
+  protected int build(int start, int end, int parentNode) {
+    int node = newNode(parentNode);
+    // node box and centroid extent
+    int o = node * 6;
+    float[] cmin = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+    float[] cmax = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+    for (int k = 0; k < 3; k++) {
+      nodeBoxes[o + k] = Float.MAX_VALUE;
+      nodeBoxes[o + 3 + k] = -Float.MAX_VALUE;
+    }
+    for (int i = start; i < end; i++) {
+      int b = items[i] * 6;
+      for (int k = 0; k < 3; k++) {
+        nodeBoxes[o + k] = Math.min(nodeBoxes[o + k], boxes[b + k]);
+        nodeBoxes[o + 3 + k] = Math.max(nodeBoxes[o + 3 + k], boxes[b + 3 + k]);
+        float c = centroid(items[i], k);
+        cmin[k] = Math.min(cmin[k], c);
+        cmax[k] = Math.max(cmax[k], c);
+      }
+    }
+    int axis = 0;
+    for (int k = 1; k < 3; k++)
+      if (cmax[k] - cmin[k] > cmax[axis] - cmin[axis])
+        axis = k;
+    if (end - start <= LEAF_SIZE || cmax[axis] <= cmin[axis]) {
+      first[node] = start;
+      count[node] = end - start;
+      left[node] = right[node] = -1;
+      for (int i = start; i < end; i++)
+        leaves[items[i]] = node;
+      return node;
+    }
+    int mid = (start + end) >>> 1;
+    select(start, end - 1, mid, axis);
+    count[node] = 0;
+    int l = build(start, mid, node);
+    int r = build(mid, end, node);
+    left[node] = l;
+    right[node] = r;
+    return node;
+  }
+
+  protected int newNode(int parentNode) {
+    if (nodeCount == left.length) {
+      int capacity = nodeCount << 1;
+      nodeBoxes = Arrays.copyOf(nodeBoxes, capacity * 6);
+      left = Arrays.copyOf(left, capacity);
+      right = Arrays.copyOf(right, capacity);
+      first = Arrays.copyOf(first, capacity);
+      count = Arrays.copyOf(count, capacity);
+      parent = Arrays.copyOf(parent, capacity);
+    }
+    parent[nodeCount] = parentNode;
+    return nodeCount++;
+  }
+
+  protected float centroid(int index, int axis) {
+    return (boxes[index * 6 + axis] + boxes[index * 6 + 3 + axis]) * 0.5f;
+  }
+
+  /**
+   * Partially sorts {@code items[lo, hi]} so that the k-th item is the one that would be
+   * there if the range was sorted by centroid along the given axis (quickselect).
+   */
+  protected void select(int lo, int hi, int k, int axis) {
+    while (lo < hi) {
+      float pivot = centroid(items[(lo + hi) >>> 1], axis);
+      int i = lo, j = hi;
+      while (i <= j) {
+        while (centroid(items[i], axis) < pivot)
+          i++;
+        while (centroid(items[j], axis) > pivot)
+          j--;
+        if (i <= j) {
+          int tmp = items[i];
+          items[i++] = items[j];
+          items[j--] = tmp;
+        }
+      }
+      if (k <= j)
+        hi = j;
+      else if (k >= i)
+        lo = i;
+      else
+        return;
+    }
+  }
+
+  /**
+   * Refits the boxes of the nodes holding the given grabber, from its leaf up to the
+   * root. The index is {@link #invalidate()}d instead if the grabber wasn't bounded or if
+   * it's no longer bounded.
+   */
+  @Override
+  public void update(Grabber grabber) {
+    if (isDirty())
+      return;
+    Integer position = positions.get(grabber);
+    if (position == null)
+      return;
+    int i = position;
+    boolean bounded = grabber instanceof BoundingBoxGrabber && ((BoundingBoxGrabber) grabber).boundingBox(box);
+    if (leaves[i] < 0 || !bounded) {
+      if (leaves[i] >= 0 || bounded)
+        invalidate();
+      return;
+    }
+    System.arraycopy(box, 0, boxes, i * 6, 6);
+    for (int node = leaves[i]; node != -1; node = parent[node])
+      fit(node);
+  }
+
+  /**
+   * Refits all the boxes from the current grabber bounds, without rebuilding the tree.
+   */
+  public void refit() {
+    if (isDirty())
+      return;
+    for (int i = 0; i < itemCount; i++)
+      if (!((BoundingBoxGrabber) grabbers[items[i]]).boundingBox(box)) {
+        invalidate();
+        return;
+      } else
+        System.arraycopy(box, 0, boxes, items[i] * 6, 6);
+    // children are always created after their parents
+    for (int node = nodeCount - 1; node >= 0; node--)
+      fit(node);
+  }
+
+  /**
+   * Recomputes the node box from its items (leaves) or its children.
+   */
+  protected void fit(int node) {
+    int o = node * 6;
+    if (left[node] == -1) {
+      for (int k = 0; k < 3; k++) {
+        nodeBoxes[o + k] = Float.MAX_VALUE;
+        nodeBoxes[o + 3 + k] = -Float.MAX_VALUE;
+      }
+      for (int i = first[node]; i < first[node] + count[node]; i++) {
+        int b = items[i] * 6;
+        for (int k = 0; k < 3; k++) {
+          nodeBoxes[o + k] = Math.min(nodeBoxes[o + k], boxes[b + k]);
+          nodeBoxes[o + 3 + k] = Math.max(nodeBoxes[o + 3 + k], boxes[b + 3 + k]);
+        }
+      }
+    } else {
+      int l = left[node] * 6, r = right[node] * 6;
+      for (int k = 0; k < 3; k++) {
+        nodeBoxes[o + k] = Math.min(nodeBoxes[l + k], nodeBoxes[r + k]);
+        nodeBoxes[o + 3 + k] = Math.max(nodeBoxes[l + 3 + k], nodeBoxes[r + 3 + k]);
+      }
+    }
+  }
+
+  @Override
+  protected boolean collect(BogusEvent event) {
+    if (event instanceof DOF3Event && ((DOF3Event) event).isRelative()) {
+      DOF3Event e = (DOF3Event) event;
+      collectPoint(e.x(), e.y(), e.z());
+      return true;
+    }
+    if (event instanceof DOF6Event && ((DOF6Event) event).isRelative()) {
+      DOF6Event e = (DOF6Event) event;
+      collectPoint(e.x(), e.y(), e.z());
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Short-lists the grabbers whose bounding box contains the given point. Returns the
+   * number of {@link #candidate(int)}s.
+   */
+  public int queryPoint(float x, float y, float z) {
+    hitCount = 0;
+    collectPoint(x, y, z);
+    return shortlist();
+  }
+
+  /**
+   * Short-lists the grabbers whose bounding box is hit by the given ray. Returns the
+   * number of {@link #candidate(int)}s.
+   */
+  public int queryRay(float ox, float oy, float oz, float dx, float dy, float dz) {
+    hitCount = 0;
+    collectRay(ox, oy, oz, dx, dy, dz);
+    return shortlist();
+  }
+
+  /**
+   * Adds a hit for each grabber whose bounding box contains the given point.
+   */
+  protected void collectPoint(float x, float y, float z) {
+    if (nodeCount == 0)
+      return;
+    int top = 0;
+    stack[top++] = 0;
+    while (top > 0) {
+      int node = stack[--top];
+      int o = node * 6;
+      if (x < nodeBoxes[o] || y < nodeBoxes[o + 1] || z < nodeBoxes[o + 2] || x > nodeBoxes[o + 3]
+          || y > nodeBoxes[o + 4] || z > nodeBoxes[o + 5])
+        continue;
+      if (left[node] == -1) {
+        for (int i = first[node]; i < first[node] + count[node]; i++) {
+          int b = items[i] * 6;
+          if (x >= boxes[b] && y >= boxes[b + 1] && z >= boxes[b + 2] && x <= boxes[b + 3] && y <= boxes[b + 4]
+              && z <= boxes[b + 5])
+            addHit(items[i]);
+        }
+      } else
+        top = push(top, left[node], right[node]);
+    }
+  }
+
+  /**
+   * Adds a hit for each grabber whose bounding box is hit by the given ray.
+   */
+  protected void collectRay(float ox, float oy, float oz, float dx, float dy, float dz) {
+    if (nodeCount == 0)
+      return;
+    float ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+    int top = 0;
+    stack[top++] = 0;
+    while (top > 0) {
+      int node = stack[--top];
+      if (!hit(nodeBoxes, node * 6, ox, oy, oz, ix, iy, iz))
+        continue;
+      if (left[node] == -1) {
+        for (int i = first[node]; i < first[node] + count[node]; i++)
+          if (hit(boxes, items[i] * 6, ox, oy, oz, ix, iy, iz))
+            addHit(items[i]);
+      } else
+        top = push(top, left[node], right[node]);
+    }
+  }
+
+  protected int push(int top, int l, int r) {
+    if (top + 2 > stack.length)
+      stack = Arrays.copyOf(stack, stack.length << 1);
+    stack[top++] = l;
+    stack[top++] = r;
+    return top;
+  }
+
+  /**
+   * Slab test of the ray (given by its origin and inverse direction) against the box
+   * stored at {@code b[o, o + 6)}. A zero direction component (i.e., an infinite inverse
+   * one) makes the ray parallel to that slab, which is then hit only if the origin lies
+   * within it. Testing such a slab as the others would yield {@code 0 * Infinity = NaN}
+   * when the origin lies on one of its planes.
+   */
+  protected static boolean hit(float[] b, int o, float ox, float oy, float oz, float ix, float iy, float iz) {
+    float tmin = 0, tmax = Float.POSITIVE_INFINITY, t1, t2;
+    if (Float.isInfinite(ix)) {
+      if (ox < b[o] || ox > b[o + 3])
+        return false;
+    } else {
+      t1 = (b[o] - ox) * ix;
+      t2 = (b[o + 3] - ox) * ix;
+      tmin = Math.max(tmin, Math.min(t1, t2));
+      tmax = Math.min(tmax, Math.max(t1, t2));
+    }
+    if (Float.isInfinite(iy)) {
+      if (oy < b[o + 1] || oy > b[o + 4])
+        return false;
+    } else {
+      t1 = (b[o + 1] - oy) * iy;
+      t2 = (b[o + 4] - oy) * iy;
+      tmin = Math.max(tmin, Math.min(t1, t2));
+      tmax = Math.min(tmax, Math.max(t1, t2));
+    }
+    if (Float.isInfinite(iz)) {
+      if (oz < b[o + 2] || oz > b[o + 5])
+        return false;
+    } else {
+      t1 = (b[o + 2] - oz) * iz;
+      t2 = (b[o + 5] - oz) * iz;
+      tmin = Math.max(tmin, Math.min(t1, t2));
+      tmax = Math.min(tmax, Math.max(t1, t2));
+    }
+    return tmax >= tmin;
+  }
+}
@@ -10,6 +10,9 @@
 
 package remixlab.bias;
 
+import remixlab.bias.event.ClickEvent;
+import remixlab.bias.event.KeyboardEvent;
+
 /**
  * A [{@link BogusEvent},{@link Grabber}] tuple. An
  * enqueued tuple fires {@link Grabber#performInteraction(BogusEvent)}
@@ -18,30 +21,106 @@ package remixlab.bias;
  * Tuples are typically enqueued by an agent (see
  * {@link Agent#handle(BogusEvent)}), but may be enqueued manually, see
  * {@link InputHandler#enqueueEventTuple(EventGrabberTuple)}.
+ * <p>
+ * Two tuples are equal when they hold the same event instance and the same grabber, so
+ * that distinct events which happen to be equal (e.g., two key strokes, since keyboard
+ * events are compared by their modifiers and id only) are never taken as duplicates. A
+ * pending tuple may be {@link #cancel()}ed so that it's never performed.
+ * <p>
+ * Tuples also carry a {@link #priority()} which is used to select their dispatch lane
+ * when the input handler queue is an {@link EventGrabberTupleLanes} instance.
  */
 public class EventGrabberTuple {
+  public static final int HIGH_PRIORITY = 0;
+  public static final int NORMAL_PRIORITY = 1;
+  public static final int LOW_PRIORITY = 2;
+
+  @Override
+  public int hashCode() {
+    return 31 * System.identityHashCode(event) + System.identityHashCode(grabber);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == null)
+      return false;
+    if (obj == this)
+      return true;
+    if (obj.getClass() != getClass())
+      return false;
+
+    EventGrabberTuple other = (EventGrabberTuple) obj;
+    return event == other.event && grabber == other.grabber;
+  }
+
   protected BogusEvent event;
   protected Grabber grabber;
+  protected int priority;
+  protected volatile boolean cancelled;
+  // true when the event is a private copy which other events have been folded into
+  protected boolean coalesced;
+  // pending tuples chains of the EventGrabberTupleIndex
+  protected boolean indexed;
+  protected EventGrabberTuple previousOfGrabber, nextOfGrabber, previousOfEvent, nextOfEvent;
+  // true when the tuple is recycled by the input handler once performed
+  protected boolean pooled;
 
   /**
    * Constructs a {@link BogusEvent},
-   * {@link Grabber} tuple.
+   * {@link Grabber} tuple having the {@link #defaultPriority(BogusEvent)}.
    *
    * @param e {@link BogusEvent}
    * @param g {@link Grabber}
    */
   public EventGrabberTuple(BogusEvent e, Grabber g) {
+    this(e, g, defaultPriority(e));
+  }
+
+  /**
+   * Constructs a {@link BogusEvent},
+   * {@link Grabber} tuple with the given priority.
+   *
+   * @param e {@link BogusEvent}
+   * @param g {@link Grabber}
+   * @param p priority, the lower the value the higher the priority
+   * @see #priority()
+   */
+  public EventGrabberTuple(BogusEvent e, Grabber g, int p) {
     event = e;
     grabber = g;
+    priority = p;
   }
 
   /**
-   * Calls {@link Grabber#performInteraction(BogusEvent)}.
+   * Internal use. Re-initializes a recycled tuple (see
+   * {@link InputHandler#enqueueEventTuple(BogusEvent, Grabber, int)}).
+   */
+  protected void set(BogusEvent e, Grabber g, int p) {
+    event = e;
+    grabber = g;
+    priority = p;
+    cancelled = false;
+    coalesced = false;
+  }
+
+  /**
+   * Returns {@link #HIGH_PRIORITY} for keyboard and click events, which users expect to
+   * be immediate, and {@link #NORMAL_PRIORITY} otherwise.
+   */
+  public static int defaultPriority(BogusEvent event) {
+    if (event instanceof KeyboardEvent || event instanceof ClickEvent)
+      return HIGH_PRIORITY;
+    return NORMAL_PRIORITY;
+  }
+
+  /**
+   * Calls {@link Grabber#performInteraction(BogusEvent)}, unless the tuple has been
+   * {@link #cancel()}ed.
    *
    * @return true if succeeded and false otherwise.
    */
   public boolean perform() {
-    if (grabber == null || event == null)
+    if (grabber == null || event == null || cancelled)
       return false;
     grabber.performInteraction(event);
     return true;
@@ -60,4 +139,30 @@ public class EventGrabberTuple {
   public Grabber grabber() {
     return grabber;
   }
+
+  /**
+   * Returns the tuple priority. The lower the value the higher the priority.
+   *
+   * @see EventGrabberTupleLanes
+   */
+  public int priority() {
+    return priority;
+  }
+
+  /**
+   * Cancels the tuple so that {@link #perform()} does nothing.
+   *
+   * @see InputHandler#removeEventTuple(BogusEvent)
+   * @see InputHandler#removeEventTuples(Grabber)
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Returns {@code true} if the tuple has been {@link #cancel()}ed.
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
 }
@@ -0,0 +1,195 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+import remixlab.bias.event.MotionEvent;
+
+import java.util.IdentityHashMap;
+
+/**
+ * Hash index over the {@link EventGrabberTuple}s pending in the
+ * {@link InputHandler#eventTupleQueue()}.
+ * <p>
+ * The index allows the input handler to detect duplicated tuples (see
+ * {@link EventGrabberTuple#equals(Object)}) and to {@link #cancel(Grabber)} /
+ * {@link #cancel(BogusEvent)} the pending tuples of a given grabber or event in time
+ * proportional to the number of cancelled tuples. The pending tuples of each grabber and
+ * of each event are chained (in fifo order) through the tuples themselves, so that
+ * indexing a tuple doesn't allocate. All methods are synchronized since tuples may be
+ * enqueued from different threads.
+ */
+public class EventGrabberTupleIndex {
+  // last pending tuple of each grabber and of each event
+  protected IdentityHashMap<Grabber, EventGrabberTuple> grabberTuples;
+  protected IdentityHashMap<BogusEvent, EventGrabberTuple> eventTuples;
+  protected int size;
+
+  public EventGrabberTupleIndex() {
+    grabberTuples = new IdentityHashMap<Grabber, EventGrabberTuple>();
+    eventTuples = new IdentityHashMap<BogusEvent, EventGrabberTuple>();
+  }
+
+  /**
+   * Indexes the given tuple. Returns {@code false} (and does nothing) if an equal tuple
+   * is already pending.
+   */
+  public synchronized boolean add(EventGrabberTuple tuple) {
+    if (tuple.indexed || contains(tuple))
+      return false;
+    tuple.indexed = true;
+    tuple.previousOfGrabber = grabberTuples.put(tuple.grabber(), tuple);
+    if (tuple.previousOfGrabber != null)
+      tuple.previousOfGrabber.nextOfGrabber = tuple;
+    linkEvent(tuple);
+    size++;
+    return true;
+  }
+
+  /**
+   * Folds the relative motion event of the given tuple into the last pending tuple of
+   * the same grabber (see {@link MotionEvent#accumulate(MotionEvent)}). Returns
+   * {@code true} if succeeded and {@code false} otherwise, e.g., if the last pending
+   * tuple of the grabber holds a fired or flushed event, or an event with a different
+   * shortcut.
+   * <p>
+   * The first time a pending tuple is coalesced its event is replaced by a copy, so that
+   * events still referenced by the agents are never modified.
+   */
+  public synchronized boolean coalesce(EventGrabberTuple tuple) {
+    if (!(tuple.event() instanceof MotionEvent))
+      return false;
+    EventGrabberTuple last = grabberTuples.get(tuple.grabber());
+    if (last == null || !(last.event() instanceof MotionEvent))
+      return false;
+    MotionEvent event = last.coalesced ? (MotionEvent) last.event() : ((MotionEvent) last.event()).get();
+    if (!event.accumulate((MotionEvent) tuple.event()))
+      return false;
+    if (!last.coalesced) {
+      // the tuple is indexed by its event instance which is about to change
+      unlinkEvent(last);
+      last.event = event;
+      last.coalesced = true;
+      linkEvent(last);
+    }
+    return true;
+  }
+
+  /**
+   * Returns {@code true} if a tuple equal to the given one is pending.
+   */
+  public synchronized boolean contains(EventGrabberTuple tuple) {
+    // events are seldom sent to more than a few grabbers
+    for (EventGrabberTuple pending = eventTuples.get(tuple.event()); pending != null; pending = pending.previousOfEvent)
+      if (pending.grabber() == tuple.grabber())
+        return true;
+    return false;
+  }
+
+  /**
+   * Removes the given tuple from the index, typically once it has been dequeued.
+   */
+  public synchronized void remove(EventGrabberTuple tuple) {
+    if (!tuple.indexed)
+      return;
+    unlinkGrabber(tuple);
+    unlinkEvent(tuple);
+    tuple.indexed = false;
+    size--;
+  }
+
+  /**
+   * {@link EventGrabberTuple#cancel()}s all the pending tuples of the given grabber and
+   * returns their number.
+   */
+  public synchronized int cancel(Grabber grabber) {
+    int count = 0;
+    EventGrabberTuple tuple = grabberTuples.get(grabber);
+    while (tuple != null) {
+      EventGrabberTuple previous = tuple.previousOfGrabber;
+      remove(tuple);
+      tuple.cancel();
+      tuple = previous;
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * {@link EventGrabberTuple#cancel()}s all the pending tuples holding the given event
+   * and returns their number.
+   */
+  public synchronized int cancel(BogusEvent event) {
+    int count = 0;
+    EventGrabberTuple tuple = eventTuples.get(event);
+    while (tuple != null) {
+      EventGrabberTuple previous = tuple.previousOfEvent;
+      remove(tuple);
+      tuple.cancel();
+      tuple = previous;
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of indexed tuples.
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Clears the index. Pending tuples are not cancelled.
+   */
+  public synchronized void clear() {
+    for (EventGrabberTuple last : grabberTuples.values())
+      for (EventGrabberTuple tuple = last; tuple != null; ) {
+        EventGrabberTuple previous = tuple.previousOfGrabber;
+        tuple.previousOfGrabber = tuple.nextOfGrabber = null;
+        tuple.previousOfEvent = tuple.nextOfEvent = null;
+        tuple.indexed = false;
+        tuple = previous;
+      }
+    grabberTuples.clear();
+    eventTuples.clear();
+    size = 0;
+  }
+
+  protected void linkEvent(EventGrabberTuple tuple) {
+    tuple.previousOfEvent = eventTuples.put(tuple.event(), tuple);
+    if (tuple.previousOfEvent != null)
+      tuple.previousOfEvent.nextOfEvent = tuple;
+  }
+
+  protected void unlinkGrabber(EventGrabberTuple tuple) {
+    if (tuple.nextOfGrabber != null)
+      tuple.nextOfGrabber.previousOfGrabber = tuple.previousOfGrabber;
+    else if (tuple.previousOfGrabber != null)
+      grabberTuples.put(tuple.grabber(), tuple.previousOfGrabber);
+    else
+      grabberTuples.remove(tuple.grabber());
+    if (tuple.previousOfGrabber != null)
+      tuple.previousOfGrabber.nextOfGrabber = tuple.nextOfGrabber;
+    tuple.previousOfGrabber = tuple.nextOfGrabber = null;
+  }
+
+  protected void unlinkEvent(EventGrabberTuple tuple) {
+    if (tuple.nextOfEvent != null)
+      tuple.nextOfEvent.previousOfEvent = tuple.previousOfEvent;
+    else if (tuple.previousOfEvent != null)
+      eventTuples.put(tuple.event(), tuple.previousOfEvent);
+    else
+      eventTuples.remove(tuple.event());
+    if (tuple.previousOfEvent != null)
+      tuple.previousOfEvent.nextOfEvent = tuple.nextOfEvent;
+    tuple.previousOfEvent = tuple.nextOfEvent = null;
+  }
+}
@@ -0,0 +1,177 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+/**
+ * An {@link EventGrabberTupleQueue} made of prioritized dispatch lanes, each of them an
+ * {@link EventGrabberTupleRingBuffer}. Use it like this:
+ * {@code inputHandler.setEventTupleQueue(new EventGrabberTupleLanes())}.
+ * <p>
+ * Tuples are enqueued into the lane given by their
+ * {@link EventGrabberTuple#priority()} (lane {@code 0} having the highest priority) and
+ * ordering is kept FIFO within each lane. By default keyboard and click tuples thus
+ * overtake motion tuples (see {@link EventGrabberTuple#defaultPriority(BogusEvent)}),
+ * and agents may set their own priority (see {@link Agent#setEventPriority(int)}).
+ * <p>
+ * To prevent starvation, a non-empty lane which has been skipped
+ * {@link #starvationLimit()} consecutive times is served next, regardless of its
+ * priority.
+ */
+public class EventGrabberTupleLanes implements EventGrabberTupleQueue {
+  public static final int DEFAULT_STARVATION_LIMIT = 64;
+
+  protected final EventGrabberTupleRingBuffer[] lanes;
+  // consumer side only
+  protected final int[] skipped;
+  protected int starvationLimit;
+
+  /**
+   * Same as
+   * {@code this(EventGrabberTuple.LOW_PRIORITY + 1, EventGrabberTupleRingBuffer.DEFAULT_CAPACITY)}
+   * .
+   */
+  public EventGrabberTupleLanes() {
+    this(EventGrabberTuple.LOW_PRIORITY + 1, EventGrabberTupleRingBuffer.DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs {@code laneCount} lanes, each able to hold {@code capacity} tuples.
+   */
+  public EventGrabberTupleLanes(int laneCount, int capacity) {
+    lanes = new EventGrabberTupleRingBuffer[Math.max(1, laneCount)];
+    for (int i = 0; i < lanes.length; i++)
+      lanes[i] = new EventGrabberTupleRingBuffer(capacity);
+    skipped = new int[lanes.length];
+    starvationLimit = DEFAULT_STARVATION_LIMIT;
+  }
+
+  /**
+   * Returns the lane index of the given tuple, i.e., its
+   * {@link EventGrabberTuple#priority()} clamped to {@code [0, lanes() - 1]}.
+   */
+  public int lane(EventGrabberTuple tuple) {
+    int p = tuple.priority();
+    return p < 0 ? 0 : p >= lanes.length ? lanes.length - 1 : p;
+  }
+
+  /**
+   * Returns the number of lanes.
+   */
+  public int lanes() {
+    return lanes.length;
+  }
+
+  /**
+   * Returns the number of tuples pending in the given lane.
+   */
+  public int depth(int lane) {
+    return lanes[lane].size();
+  }
+
+  /**
+   * Returns the number of tuples which couldn't be enqueued in the given lane because it
+   * was full.
+   */
+  public long overflows(int lane) {
+    return lanes[lane].overflows();
+  }
+
+  /**
+   * Returns the number of consecutive times a non-empty lane may be skipped before it's
+   * served.
+   */
+  public int starvationLimit() {
+    return starvationLimit;
+  }
+
+  /**
+   * Sets the {@link #starvationLimit()}.
+   */
+  public void setStarvationLimit(int limit) {
+    starvationLimit = Math.max(1, limit);
+  }
+
+  @Override
+  public boolean offer(EventGrabberTuple tuple) {
+    if (tuple == null)
+      return false;
+    return lanes[lane(tuple)].offer(tuple);
+  }
+
+  @Override
+  public EventGrabberTuple poll() {
+    int served = -1;
+    for (int i = 0; i < lanes.length; i++) {
+      if (lanes[i].isEmpty()) {
+        skipped[i] = 0;
+        continue;
+      }
+      if (served == -1 || (skipped[i] >= starvationLimit && skipped[i] > skipped[served]))
+        served = i;
+    }
+    if (served == -1)
+      return null;
+    EventGrabberTuple tuple = lanes[served].poll();
+    if (tuple == null)
+      // the tuple is still being published, try the other lanes in order
+      for (int i = 0; i < lanes.length && tuple == null; i++)
+        if (i != served)
+          tuple = lanes[served = i].poll();
+    if (tuple == null)
+      return null;
+    for (int i = 0; i < lanes.length; i++)
+      if (i == served)
+        skipped[i] = 0;
+      else if (!lanes[i].isEmpty())
+        skipped[i]++;
+    return tuple;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    for (EventGrabberTupleRingBuffer lane : lanes)
+      if (!lane.isEmpty())
+        return false;
+    return true;
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (EventGrabberTupleRingBuffer lane : lanes)
+      size += lane.size();
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    for (EventGrabberTupleRingBuffer lane : lanes)
+      lane.clear();
+    for (int i = 0; i < skipped.length; i++)
+      skipped[i] = 0;
+  }
+
+  @Override
+  public int capacity() {
+    int capacity = 0;
+    for (EventGrabberTupleRingBuffer lane : lanes)
+      capacity += lane.capacity();
+    return capacity;
+  }
+
+  @Override
+  public long overflows() {
+    long overflows = 0;
+    for (EventGrabberTupleRingBuffer lane : lanes)
+      overflows += lane.overflows();
+    return overflows;
+  }
+}
@@ -0,0 +1,64 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+/**
+ * The {@link InputHandler} event dispatcher queue of {@link EventGrabberTuple}s (see
+ * {@link InputHandler#eventTupleQueue()}).
+ * <p>
+ * Tuples may be enqueued by several producers (typically {@link Agent}s, see
+ * {@link Agent#handle(BogusEvent)}) but they are dequeued by a single consumer: the
+ * {@link InputHandler#handle()} method. Implement this interface and pass an instance to
+ * {@link InputHandler#setEventTupleQueue(EventGrabberTupleQueue)} to replace the default
+ * {@link EventGrabberTupleRingBuffer}.
+ */
+public interface EventGrabberTupleQueue {
+  /**
+   * Enqueues the given tuple. Returns {@code true} if succeeded and {@code false}
+   * otherwise (e.g., when the queue is full).
+   *
+   * @see #overflows()
+   */
+  boolean offer(EventGrabberTuple tuple);
+
+  /**
+   * Dequeues the oldest tuple. Returns {@code null} if the queue is empty. Should only be
+   * called by the (single) consumer.
+   */
+  EventGrabberTuple poll();
+
+  /**
+   * Returns {@code true} if there are no tuples in the queue.
+   */
+  boolean isEmpty();
+
+  /**
+   * Returns the number of tuples in the queue.
+   */
+  int size();
+
+  /**
+   * Removes all the tuples from the queue. Nothing is executed. Should only be called by
+   * the (single) consumer.
+   */
+  void clear();
+
+  /**
+   * Returns the maximum number of tuples the queue can hold.
+   */
+  int capacity();
+
+  /**
+   * Returns the number of tuples which couldn't be {@link #offer(EventGrabberTuple)}ed
+   * because the queue was full.
+   */
+  long overflows();
+}
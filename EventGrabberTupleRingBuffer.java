@@ -0,0 +1,124 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Default {@link EventGrabberTupleQueue} implementation: a bounded, lock-free,
+ * multi-producer / single-consumer ring buffer.
+ * <p>
+ * All the slots are allocated at construction time (the {@link #capacity()} is rounded up
+ * to the next power of two) so that enqueueing a tuple is an O(1) operation which doesn't
+ * allocate. When the buffer is full {@link #offer(EventGrabberTuple)} returns
+ * {@code false} and the {@link #overflows()} counter is incremented.
+ */
+public class EventGrabberTupleRingBuffer implements EventGrabberTupleQueue {
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  protected final int capacity, mask;
+  protected final AtomicReferenceArray<EventGrabberTuple> buffer;
+  // slot i is free to be written at position p when sequences[i] == p, and holds the
+  // tuple at position p (ready to be read) when sequences[i] == p + 1
+  protected final AtomicLongArray sequences;
+  protected final AtomicLong tail, overflowCount;
+  protected volatile long head;
+
+  /**
+   * Same as {@code this(DEFAULT_CAPACITY)}.
+   */
+  public EventGrabberTupleRingBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs a ring buffer able to hold {@code capacity} tuples (rounded up to the next
+   * power of two).
+   */
+  public EventGrabberTupleRingBuffer(int capacity) {
+    int c = 2;
+    while (c < capacity)
+      c <<= 1;
+    this.capacity = c;
+    mask = c - 1;
+    buffer = new AtomicReferenceArray<EventGrabberTuple>(c);
+    sequences = new AtomicLongArray(c);
+    for (int i = 0; i < c; i++)
+      sequences.set(i, i);
+    tail = new AtomicLong();
+    overflowCount = new AtomicLong();
+  }
+
+  @Override
+  public boolean offer(EventGrabberTuple tuple) {
+    if (tuple == null)
+      return false;
+    long position;
+    int index;
+    while (true) {
+      position = tail.get();
+      index = (int) (position & mask);
+      long diff = sequences.get(index) - position;
+      if (diff == 0) {
+        if (tail.compareAndSet(position, position + 1))
+          break;
+      } else if (diff < 0) {
+        overflowCount.incrementAndGet();
+        return false;
+      }
+    }
+    buffer.set(index, tuple);
+    sequences.set(index, position + 1);
+    return true;
+  }
+
+  @Override
+  public EventGrabberTuple poll() {
+    long position = head;
+    int index = (int) (position & mask);
+    if (sequences.get(index) != position + 1)
+      return null;
+    EventGrabberTuple tuple = buffer.get(index);
+    buffer.set(index, null);
+    sequences.set(index, position + capacity);
+    head = position + 1;
+    return tuple;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public int size() {
+    long size = tail.get() - head;
+    return size < 0 ? 0 : (int) Math.min(size, capacity);
+  }
+
+  @Override
+  public void clear() {
+    while (poll() != null)
+      ;
+  }
+
+  @Override
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public long overflows() {
+    return overflowCount.get();
+  }
+}
@@ -12,6 +12,9 @@ package remixlab.bias;
 
 import remixlab.bias.event.*;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * {@link Grabber} object which eases third-party implementation of the
  * {@link Grabber} interface.
@@ -23,8 +26,16 @@ import remixlab.bias.event.*;
  * {@link #performInteraction(DOF6Event)} , {@link #performInteraction(KeyboardEvent)} and
  * so on. Thus allowing implementations of this abstract GrabberObject to override only
  * those method signatures that might be of their interest.
+ * <p>
+ * The overridden {@code checkIfGrabsInput} signatures are also used to tell which event
+ * classes the object {@link #canGrab(Class)}.
  */
-public abstract class GrabberObject implements Grabber {
+public abstract class GrabberObject implements SelectiveGrabber {
+  protected static final int KEYBOARD = 1, CLICK = 2, DOF1 = 4, DOF2 = 8, DOF3 = 16, DOF6 = 32, MOTION = 64,
+      OTHER = 128;
+  // grabbing masks per GrabberObject class
+  protected static final ConcurrentHashMap<Class<?>, Integer> grabMasks = new ConcurrentHashMap<Class<?>, Integer>();
+
   /**
    * Empty constructor.
    */
@@ -139,6 +150,74 @@ public abstract class GrabberObject implements Grabber {
   protected void performInteraction(DOF6Event event) {
   }
 
+  /**
+   * Returns {@code true} if this object class overrides the {@code checkIfGrabsInput}
+   * signature handling the given event class (or a more generic one, e.g.,
+   * {@link #checkIfGrabsInput(MotionEvent)} for a {@link DOF2Event}), and {@code false}
+   * otherwise. Results are computed with reflection once per class.
+   */
+  @Override
+  public boolean canGrab(Class<? extends BogusEvent> eventClass) {
+    Integer mask = grabMasks.get(getClass());
+    if (mask == null) {
+      mask = grabMask(getClass());
+      grabMasks.put(getClass(), mask);
+    }
+    return (mask & eventMask(eventClass)) != 0;
+  }
+
+  protected static int eventMask(Class<? extends BogusEvent> eventClass) {
+    if (KeyboardEvent.class.isAssignableFrom(eventClass))
+      return KEYBOARD;
+    if (ClickEvent.class.isAssignableFrom(eventClass))
+      return CLICK;
+    if (DOF1Event.class.isAssignableFrom(eventClass))
+      return DOF1;
+    if (DOF2Event.class.isAssignableFrom(eventClass))
+      return DOF2;
+    if (DOF3Event.class.isAssignableFrom(eventClass))
+      return DOF3;
+    if (DOF6Event.class.isAssignableFrom(eventClass))
+      return DOF6;
+    if (MotionEvent.class.isAssignableFrom(eventClass))
+      return MOTION;
+    return OTHER;
+  }
+
+  protected static int grabMask(Class<?> cls) {
+    int mask = 0;
+    for (Class<?> c = cls; c != null && c != GrabberObject.class; c = c.getSuperclass()) {
+      Method[] methods;
+      try {
+        methods = c.getDeclaredMethods();
+      } catch (SecurityException e) {
+        return ~0;
+      }
+      for (Method method : methods) {
+        if (!method.getName().equals("checkIfGrabsInput") || method.getParameterTypes().length != 1)
+          continue;
+        Class<?> type = method.getParameterTypes()[0];
+        if (type == BogusEvent.class)
+          return ~0;
+        if (type == MotionEvent.class)
+          mask |= DOF1 | DOF2 | DOF3 | DOF6 | MOTION;
+        else if (type == KeyboardEvent.class)
+          mask |= KEYBOARD;
+        else if (type == ClickEvent.class)
+          mask |= CLICK;
+        else if (type == DOF1Event.class)
+          mask |= DOF1;
+        else if (type == DOF2Event.class)
+          mask |= DOF2;
+        else if (type == DOF3Event.class)
+          mask |= DOF3;
+        else if (type == DOF6Event.class)
+          mask |= DOF6;
+      }
+    }
+    return mask;
+  }
+
   @Override
   public boolean checkIfGrabsInput(BogusEvent event) {
     if (event instanceof KeyboardEvent)
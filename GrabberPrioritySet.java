@@ -0,0 +1,336 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Set of grabbers kept both in insertion order (see {@link #grabbers()}) and sorted by
+ * decreasing priority (e.g., their depth or layer), grabbers sharing the same priority
+ * being sorted by insertion order (see {@link #list()}).
+ * <p>
+ * An identity hash index makes {@link #contains(Grabber)} and {@link #add(Grabber)} O(1)
+ * operations, as well as {@link #swapRemove(Grabber)} when no priority has been set.
+ * Changing a grabber priority is O(log n): the sorted order is kept in a tree, which is
+ * only maintained while some grabber has a non-zero priority. The cached {@link #list()}
+ * isn't rebuilt then: the grabber is just moved to its new place (see
+ * {@link #reorder(List, Grabber, int)}).
+ * <p>
+ * The {@link Agent} keeps its {@link Agent#grabbers()} in such a set so that picking
+ * returns the top-most grabber (see {@link Agent#setGrabberPriority(Grabber, int)}).
+ */
+public class GrabberPrioritySet implements Iterable<Grabber> {
+  protected static class Entry implements Comparable<Entry> {
+    protected Grabber grabber;
+    protected int priority, position;
+
+    @Override
+    public int compareTo(Entry other) {
+      if (priority != other.priority)
+        return priority > other.priority ? -1 : 1;
+      return position - other.position;
+    }
+  }
+
+  protected ArrayList<Grabber> grabbers, sorted;
+  protected List<Grabber> grabbersView, sortedView;
+  protected IdentityHashMap<Grabber, Entry> index;
+  // only maintained while prioritized > 0
+  protected TreeSet<Entry> entries;
+  protected int prioritized;
+  protected boolean dirty;
+
+  public GrabberPrioritySet() {
+    grabbers = new ArrayList<Grabber>();
+    sorted = new ArrayList<Grabber>();
+    grabbersView = Collections.unmodifiableList(grabbers);
+    sortedView = Collections.unmodifiableList(sorted);
+    index = new IdentityHashMap<Grabber, Entry>();
+    entries = new TreeSet<Entry>();
+  }
+
+  /**
+   * Appends the grabber with a {@code 0} priority. Returns {@code false} if the grabber
+   * is {@code null} or if it was already in the set.
+   */
+  public boolean add(Grabber grabber) {
+    if (grabber == null || index.containsKey(grabber))
+      return false;
+    Entry entry = new Entry();
+    entry.grabber = grabber;
+    entry.position = grabbers.size();
+    index.put(grabber, entry);
+    grabbers.add(grabber);
+    if (isPrioritized())
+      entries.add(entry);
+    dirty = true;
+    return true;
+  }
+
+  /**
+   * Removes the grabber, keeping the order of the remaining ones. This is an O(n)
+   * operation. Returns {@code false} if the grabber wasn't in the set.
+   *
+   * @see #swapRemove(Grabber)
+   */
+  public boolean remove(Grabber grabber) {
+    Entry entry = detach(grabber);
+    if (entry == null)
+      return false;
+    grabbers.remove(entry.position);
+    // positions keep their relative order, so the tree remains valid
+    for (int i = entry.position; i < grabbers.size(); i++)
+      index.get(grabbers.get(i)).position = i;
+    return true;
+  }
+
+  /**
+   * Removes the grabber by moving the last inserted grabber into its place. This is an
+   * O(1) operation (O(log n) when {@link #isPrioritized()}) which should be used when the
+   * insertion order doesn't matter. Returns {@code false} if the grabber wasn't in the
+   * set.
+   *
+   * @see #remove(Grabber)
+   */
+  public boolean swapRemove(Grabber grabber) {
+    Entry entry = detach(grabber);
+    if (entry == null)
+      return false;
+    int last = grabbers.size() - 1;
+    Grabber moved = grabbers.remove(last);
+    if (entry.position != last) {
+      grabbers.set(entry.position, moved);
+      Entry movedEntry = index.get(moved);
+      if (isPrioritized()) {
+        entries.remove(movedEntry);
+        movedEntry.position = entry.position;
+        entries.add(movedEntry);
+      } else
+        movedEntry.position = entry.position;
+    }
+    return true;
+  }
+
+  /**
+   * Removes all the given grabbers in a single O(n) pass, keeping the order of the
+   * remaining ones. Returns the number of removed grabbers.
+   */
+  public int removeAll(Collection<? extends Grabber> collection) {
+    int removed = 0;
+    for (Grabber grabber : collection)
+      if (detach(grabber) != null)
+        removed++;
+    if (removed == 0)
+      return 0;
+    int size = 0;
+    for (int i = 0; i < grabbers.size(); i++) {
+      Entry entry = index.get(grabbers.get(i));
+      if (entry != null) {
+        entry.position = size;
+        grabbers.set(size++, entry.grabber);
+      }
+    }
+    grabbers.subList(size, grabbers.size()).clear();
+    return removed;
+  }
+
+  /**
+   * Removes the grabber entry from the index and the tree.
+   */
+  protected Entry detach(Grabber grabber) {
+    Entry entry = index.remove(grabber);
+    if (entry == null)
+      return null;
+    if (entry.priority != 0) {
+      if (--prioritized == 0)
+        entries.clear();
+      else
+        entries.remove(entry);
+    } else if (isPrioritized())
+      entries.remove(entry);
+    dirty = true;
+    return entry;
+  }
+
+  /**
+   * Removes all the grabbers.
+   */
+  public void clear() {
+    grabbers.clear();
+    entries.clear();
+    index.clear();
+    prioritized = 0;
+    dirty = true;
+  }
+
+  /**
+   * Returns {@code true} if the grabber is in the set.
+   */
+  public boolean contains(Grabber grabber) {
+    return index.containsKey(grabber);
+  }
+
+  /**
+   * Returns the number of grabbers in the set.
+   */
+  public int size() {
+    return grabbers.size();
+  }
+
+  /**
+   * Returns the grabber priority, or {@code 0} if the grabber isn't in the set.
+   */
+  public int priority(Grabber grabber) {
+    Entry entry = index.get(grabber);
+    return entry == null ? 0 : entry.priority;
+  }
+
+  /**
+   * Sets the grabber priority. Among the grabbers having that priority, the grabber keeps
+   * its insertion order. Returns {@code false} if the grabber isn't in the set or if its
+   * priority doesn't change.
+   */
+  public boolean setPriority(Grabber grabber, int priority) {
+    Entry entry = index.get(grabber);
+    if (entry == null || entry.priority == priority)
+      return false;
+    int previous = entry.priority;
+    if (!isPrioritized()) {
+      entry.priority = priority;
+      prioritized = 1;
+      for (Grabber g : grabbers)
+        entries.add(index.get(g));
+      dirty = true;
+    } else {
+      entries.remove(entry);
+      if (entry.priority != 0)
+        prioritized--;
+      if (priority != 0)
+        prioritized++;
+      entry.priority = priority;
+      if (isPrioritized()) {
+        entries.add(entry);
+        if (!dirty)
+          reorder(sorted, grabber, previous);
+      } else {
+        entries.clear();
+        dirty = true;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Moves the grabber, whose priority has just been changed from {@code previous} (see
+   * {@link #setPriority(Grabber, int)}), to its new place in the given list, e.g., a
+   * cached subset of the {@link #list()}. The list should be sorted as the {@link #list()}
+   * was before the change. The grabber is located and re-inserted by binary search, so
+   * the list isn't rebuilt. Returns {@code false} if the grabber isn't in the list.
+   */
+  public boolean reorder(List<Grabber> list, Grabber grabber, int previous) {
+    Entry entry = index.get(grabber);
+    if (entry == null)
+      return false;
+    int i = search(list, grabber, previous, entry.position);
+    if (i < 0)
+      return false;
+    list.remove(i);
+    list.add(-search(list, grabber, entry.priority, entry.position) - 1, grabber);
+    return true;
+  }
+
+  /**
+   * Binary searches the given sorted list for the grabber having the given priority and
+   * insertion position. Returns its index, or {@code -(insertion point) - 1} if it isn't
+   * found, as {@code Collections.binarySearch} does.
+   */
+  protected int search(List<Grabber> list, Grabber grabber, int priority, int position) {
+    int low = 0, high = list.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      Grabber g = list.get(mid);
+      // the entry of the grabber itself may already hold its new priority
+      if (g == grabber)
+        return mid;
+      Entry entry = index.get(g);
+      int comparison = entry.priority != priority ? (entry.priority > priority ? -1 : 1) : entry.position - position;
+      if (comparison < 0)
+        low = mid + 1;
+      else
+        high = mid - 1;
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Returns {@code true} if some grabber has a non-zero priority, i.e., if the
+   * {@link #list()} order may differ from the insertion order.
+   */
+  public boolean isPrioritized() {
+    return prioritized > 0;
+  }
+
+  /**
+   * Returns an iterator over the grabbers, sorted by decreasing priority.
+   */
+  @Override
+  public Iterator<Grabber> iterator() {
+    if (!isPrioritized())
+      return grabbersView.iterator();
+    final Iterator<Entry> iterator = entries.iterator();
+    return new Iterator<Grabber>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Grabber next() {
+        return iterator.next().grabber;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /**
+   * Returns an unmodifiable list of the grabbers in insertion order.
+   */
+  public List<Grabber> grabbers() {
+    return grabbersView;
+  }
+
+  /**
+   * Returns an unmodifiable list of the grabbers, sorted by decreasing priority. Same as
+   * {@link #grabbers()} when the set is not {@link #isPrioritized()}. Otherwise the list
+   * is cached and only rebuilt after grabbers are added or removed.
+   */
+  public List<Grabber> list() {
+    if (!isPrioritized())
+      return grabbersView;
+    if (dirty) {
+      sorted.clear();
+      for (Entry entry : entries)
+        sorted.add(entry.grabber);
+      dirty = false;
+    }
+    return sortedView;
+  }
+}
@@ -0,0 +1,332 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+import remixlab.bias.event.ClickEvent;
+import remixlab.bias.event.DOF2Event;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * A software (CPU-side) ID buffer: a low-resolution raster which records, per pixel, the
+ * index of the top-most {@link BoundedGrabber} whose footprint (its
+ * {@link BoundedGrabber#bounds(float[])}) overlaps the pixel, together with the number
+ * of overlapping footprints. Other grabbers are always queried.
+ * <p>
+ * Picking a positional event (a {@link ClickEvent} or a relative {@link DOF2Event}) then
+ * takes a single array lookup when a single footprint overlaps the pixel, which
+ * short-lists that grabber to be confirmed by its
+ * {@link Grabber#checkIfGrabsInput(BogusEvent)}. The raster is split into square tiles
+ * which keep the footprints overlapping them, so that when several footprints overlap
+ * the pixel only those containing the event position are short-listed (the top-most
+ * first). Queries are thus always {@link #isExhaustive()}.
+ * <p>
+ * When a grabber moves (see {@link Agent#updateBounds(Grabber)}), only the tiles covered
+ * by its previous and current footprints are rasterized again, the next time the buffer
+ * is queried, visiting only the footprints overlapping those tiles.
+ */
+public class IdBuffer extends SpatialIndex {
+  // tiles are (1 << TILE_SHIFT) x (1 << TILE_SHIFT) pixels
+  protected static final int TILE_SHIFT = 3;
+
+  protected float originX, originY, pixelWidth, pixelHeight;
+  protected int cols, rows, tileCols, tileRows;
+  // per pixel top-most grabber and overlapping footprints count
+  protected int[] ids, counts;
+  // per grabber footprints
+  protected float[] rects;
+  protected boolean[] bounded;
+  // bounded grabbers whose footprints aren't fully inside the raster
+  protected int[] clipped;
+  protected int clippedCount;
+  // per tile footprints overlapping it, sorted by grabber position
+  protected int[][] tileItems;
+  protected int[] tileSizes;
+  // tiles to be rasterized again
+  protected boolean[] tileDirty;
+  protected int[] dirtyTiles;
+  protected int dirtyCount;
+  protected IdentityHashMap<Grabber, Integer> positions;
+  protected float[] rect;
+  protected float x, y;
+
+  /**
+   * Same as {@code this(0, 0, width, height, columns, rows)}.
+   */
+  public IdBuffer(float width, float height, int columns, int rows) {
+    this(0, 0, width, height, columns, rows);
+  }
+
+  /**
+   * Constructs a {@code columns x rows} raster covering the
+   * {@code [x, x + width) x [y, y + height)} region, e.g., a quarter of the screen
+   * resolution.
+   */
+  public IdBuffer(float x, float y, float width, float height, int columns, int rows) {
+    cols = Math.max(1, columns);
+    this.rows = Math.max(1, rows);
+    originX = x;
+    originY = y;
+    pixelWidth = width / cols;
+    pixelHeight = height / this.rows;
+    ids = new int[cols * this.rows];
+    counts = new int[cols * this.rows];
+    tileCols = ((cols - 1) >> TILE_SHIFT) + 1;
+    tileRows = ((this.rows - 1) >> TILE_SHIFT) + 1;
+    tileItems = new int[tileCols * tileRows][];
+    tileSizes = new int[tileCols * tileRows];
+    tileDirty = new boolean[tileCols * tileRows];
+    dirtyTiles = new int[tileCols * tileRows];
+    rects = new float[64];
+    bounded = new boolean[16];
+    clipped = new int[16];
+    positions = new IdentityHashMap<Grabber, Integer>();
+    rect = new float[4];
+  }
+
+  /**
+   * Returns the number of raster columns.
+   */
+  public int columns() {
+    return cols;
+  }
+
+  /**
+   * Returns the number of raster rows.
+   */
+  public int rows() {
+    return rows;
+  }
+
+  @Override
+  protected void buildIndex() {
+    if (bounded.length < grabberCount) {
+      bounded = new boolean[grabberCount];
+      rects = new float[grabberCount << 2];
+    }
+    positions.clear();
+    clippedCount = 0;
+    Arrays.fill(tileSizes, 0);
+    for (int i = 0; i < grabberCount; i++) {
+      positions.put(grabbers[i], i);
+      bounded[i] = grabbers[i] instanceof BoundedGrabber && ((BoundedGrabber) grabbers[i]).bounds(rect);
+      if (!bounded[i]) {
+        addUnbounded(i);
+        continue;
+      }
+      System.arraycopy(rect, 0, rects, i << 2, 4);
+      if (isClipped(i))
+        addClipped(i);
+      int o = i << 2;
+      for (int r = tileRow(rects[o + 1]); r <= tileRow(rects[o + 3]); r++)
+        for (int c = tileCol(rects[o]); c <= tileCol(rects[o + 2]); c++)
+          insert(r * tileCols + c, i);
+    }
+    for (int t = 0; t < tileSizes.length; t++)
+      rasterize(t);
+    Arrays.fill(tileDirty, false);
+    dirtyCount = 0;
+  }
+
+  protected boolean isClipped(int index) {
+    int o = index << 2;
+    return rects[o] < originX || rects[o + 1] < originY || rects[o + 2] >= originX + cols * pixelWidth
+        || rects[o + 3] >= originY + rows * pixelHeight;
+  }
+
+  protected void addClipped(int index) {
+    if (clippedCount == clipped.length)
+      clipped = Arrays.copyOf(clipped, clippedCount << 1);
+    clipped[clippedCount++] = index;
+  }
+
+  /**
+   * Adds the footprint to the tile, keeping the tile footprints sorted.
+   */
+  protected void insert(int tile, int index) {
+    int[] items = tileItems[tile];
+    int size = tileSizes[tile];
+    if (items == null)
+      items = tileItems[tile] = new int[4];
+    else if (size == items.length)
+      items = tileItems[tile] = Arrays.copyOf(items, size << 1);
+    // footprints are typically appended in order
+    int k = size;
+    while (k > 0 && items[k - 1] > index) {
+      items[k] = items[k - 1];
+      k--;
+    }
+    items[k] = index;
+    tileSizes[tile] = size + 1;
+  }
+
+  /**
+   * Removes the footprint from the tile.
+   */
+  protected void remove(int tile, int index) {
+    int[] items = tileItems[tile];
+    int size = tileSizes[tile];
+    for (int k = 0; k < size; k++)
+      if (items[k] == index) {
+        System.arraycopy(items, k + 1, items, k, size - k - 1);
+        tileSizes[tile] = size - 1;
+        return;
+      }
+  }
+
+  /**
+   * Rasterizes again the footprints overlapping the given tile.
+   */
+  protected void rasterize(int tile) {
+    int c0 = (tile % tileCols) << TILE_SHIFT, r0 = (tile / tileCols) << TILE_SHIFT;
+    int c1 = Math.min(cols - 1, c0 + (1 << TILE_SHIFT) - 1), r1 = Math.min(rows - 1, r0 + (1 << TILE_SHIFT) - 1);
+    for (int r = r0; r <= r1; r++) {
+      Arrays.fill(ids, r * cols + c0, r * cols + c1 + 1, -1);
+      Arrays.fill(counts, r * cols + c0, r * cols + c1 + 1, 0);
+    }
+    // footprints are visited in order, so the first id written to a pixel is the top-most
+    int[] items = tileItems[tile];
+    for (int k = 0; k < tileSizes[tile]; k++) {
+      int i = items[k];
+      int o = i << 2;
+      int fc0 = Math.max(c0, col(rects[o])), fr0 = Math.max(r0, row(rects[o + 1]));
+      int fc1 = Math.min(c1, col(rects[o + 2])), fr1 = Math.min(r1, row(rects[o + 3]));
+      for (int r = fr0; r <= fr1; r++)
+        for (int p = r * cols + fc0; p <= r * cols + fc1; p++) {
+          if (counts[p]++ == 0)
+            ids[p] = i;
+        }
+    }
+  }
+
+  protected int col(float px) {
+    int c = (int) Math.floor((px - originX) / pixelWidth);
+    return c < 0 ? 0 : c >= cols ? cols - 1 : c;
+  }
+
+  protected int row(float py) {
+    int r = (int) Math.floor((py - originY) / pixelHeight);
+    return r < 0 ? 0 : r >= rows ? rows - 1 : r;
+  }
+
+  protected int tileCol(float px) {
+    return col(px) >> TILE_SHIFT;
+  }
+
+  protected int tileRow(float py) {
+    return row(py) >> TILE_SHIFT;
+  }
+
+  protected void markDirty(int tile) {
+    if (!tileDirty[tile]) {
+      tileDirty[tile] = true;
+      dirtyTiles[dirtyCount++] = tile;
+    }
+  }
+
+  /**
+   * Moves the grabber footprint among the tiles covered by its previous and current
+   * footprints, and marks those tiles to be rasterized again. The buffer is
+   * {@link #invalidate()}d instead if the grabber becomes (or stops being) bounded, or
+   * enters (or leaves) the raster region.
+   */
+  @Override
+  public void update(Grabber grabber) {
+    if (isDirty())
+      return;
+    Integer position = positions.get(grabber);
+    if (position == null)
+      return;
+    int i = position;
+    boolean nowBounded = grabber instanceof BoundedGrabber && ((BoundedGrabber) grabber).bounds(rect);
+    if (!bounded[i] || !nowBounded) {
+      if (bounded[i] || nowBounded)
+        invalidate();
+      return;
+    }
+    boolean wasClipped = isClipped(i);
+    int o = i << 2;
+    int c0 = tileCol(rects[o]), r0 = tileRow(rects[o + 1]), c1 = tileCol(rects[o + 2]), r1 = tileRow(rects[o + 3]);
+    System.arraycopy(rect, 0, rects, o, 4);
+    if (wasClipped != isClipped(i)) {
+      invalidate();
+      return;
+    }
+    int nc0 = tileCol(rects[o]), nr0 = tileRow(rects[o + 1]), nc1 = tileCol(rects[o + 2]), nr1 = tileRow(rects[o + 3]);
+    for (int r = r0; r <= r1; r++)
+      for (int c = c0; c <= c1; c++) {
+        if (c < nc0 || c > nc1 || r < nr0 || r > nr1)
+          remove(r * tileCols + c, i);
+        markDirty(r * tileCols + c);
+      }
+    for (int r = nr0; r <= nr1; r++)
+      for (int c = nc0; c <= nc1; c++) {
+        if (c < c0 || c > c1 || r < r0 || r > r1)
+          insert(r * tileCols + c, i);
+        markDirty(r * tileCols + c);
+      }
+  }
+
+  /**
+   * Sets the {@code x} and {@code y} event position. Returns {@code false} if the event
+   * isn't positional. Override it to support your own positional events.
+   */
+  protected boolean position(BogusEvent event) {
+    if (event instanceof ClickEvent) {
+      x = ((ClickEvent) event).x();
+      y = ((ClickEvent) event).y();
+      return true;
+    }
+    if (event instanceof DOF2Event && ((DOF2Event) event).isRelative()) {
+      x = ((DOF2Event) event).x();
+      y = ((DOF2Event) event).y();
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  protected boolean collect(BogusEvent event) {
+    if (!position(event))
+      return false;
+    for (int k = 0; k < dirtyCount; k++) {
+      rasterize(dirtyTiles[k]);
+      tileDirty[dirtyTiles[k]] = false;
+    }
+    dirtyCount = 0;
+    if (x < originX || y < originY || x >= originX + cols * pixelWidth || y >= originY + rows * pixelHeight) {
+      // only the clipped footprints may lie out of the raster
+      for (int i = 0; i < clippedCount; i++)
+        if (contains(clipped[i]))
+          addHit(clipped[i]);
+      return true;
+    }
+    int c = col(x), r = row(y), p = r * cols + c;
+    if (counts[p] == 1) {
+      if (contains(ids[p]))
+        addHit(ids[p]);
+    } else if (counts[p] > 1) {
+      // the footprints overlapping the pixel are among those of its tile
+      int tile = (r >> TILE_SHIFT) * tileCols + (c >> TILE_SHIFT);
+      int[] items = tileItems[tile];
+      for (int k = 0; k < tileSizes[tile]; k++)
+        if (contains(items[k]))
+          addHit(items[k]);
+    }
+    return true;
+  }
+
+  protected boolean contains(int index) {
+    int o = index << 2;
+    return x >= rects[o] && y >= rects[o + 1] && x <= rects[o + 2] && y <= rects[o + 3];
+  }
+}
@@ -11,13 +11,19 @@
 package remixlab.bias;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * The InputHandler object is the high level package handler which holds a collection of
  * {@link #agents()}, and an event dispatcher queue of
- * {@link EventGrabberTuple}s ({@link #eventTupleQueue()}). Such tuple
+ * {@link EventGrabberTuple}s ({@link #eventTupleQueue()}, an
+ * {@link EventGrabberTupleRingBuffer} by default). Such tuple
  * represents a message passing to application objects, allowing an object to be
  * instructed to perform a particular user-defined action from a given
  * {@link BogusEvent}. For an introduction to BIAS please refer to
@@ -27,17 +33,52 @@ import java.util.List;
  * {@link #handle()}. Therefore, simply attach a call to {@link #handle()} at the end of
  * your main event (drawing) loop for that to take effect (like it's done in
  * <b>dandelion</b> by the <b>AbstractScene.postDraw()</b> method).
+ * <p>
+ * Alternatively, the agents may be polled from a dedicated input thread running at its
+ * own rate (see {@link #startInputThread(float)}), in which case {@link #handle()} only
+ * performs the tuples produced by that thread, so that input latency no longer depends
+ * on the frame rate. Refer to {@link Agent#pickingThread()} for the threading contract
+ * the agents follow meanwhile.
  */
 public class InputHandler {
   // D E V I C E S & E V E N T S
-  protected List<Agent> agents;
-  protected LinkedList<EventGrabberTuple> eventTupleQueue;
+  protected CopyOnWriteArrayList<Agent> agents;
+  protected EventGrabberTupleQueue eventTupleQueue;
+  protected EventGrabberTupleIndex eventTupleIndex;
+  // performed tuples to be reused by enqueueEventTuple(BogusEvent, Grabber, int)
+  protected EventGrabberTupleRingBuffer tuplePool;
+  protected boolean coalescing, deferredCoalescing;
+  protected volatile int deferred;
+  protected ArrayList<BogusEvent> feedBuffer;
+  protected volatile Thread inputThread;
+  protected volatile float inputThreadFrequency;
+  protected volatile Thread.UncaughtExceptionHandler inputThreadExceptionHandler;
+  // agents picking from the input thread, mapped to whether or not their concurrent
+  // registration was enabled by the thread
+  protected IdentityHashMap<Agent, Boolean> threadedAgents = new IdentityHashMap<Agent, Boolean>();
 
+  /**
+   * Same as {@code this(EventGrabberTupleRingBuffer.DEFAULT_CAPACITY)}.
+   *
+   * @see #InputHandler(int)
+   */
   public InputHandler() {
+    this(EventGrabberTupleRingBuffer.DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs an input handler whose {@link #eventTupleQueue()} is an
+   * {@link EventGrabberTupleRingBuffer} able to hold {@code capacity} tuples per
+   * {@link #handle()} cycle.
+   */
+  public InputHandler(int capacity) {
     // agents
-    agents = new ArrayList<Agent>();
+    agents = new CopyOnWriteArrayList<Agent>();
+    feedBuffer = new ArrayList<BogusEvent>();
     // events
-    eventTupleQueue = new LinkedList<EventGrabberTuple>();
+    eventTupleQueue = new EventGrabberTupleRingBuffer(capacity);
+    eventTupleIndex = new EventGrabberTupleIndex();
+    tuplePool = new EventGrabberTupleRingBuffer(EventGrabberTupleRingBuffer.DEFAULT_CAPACITY);
   }
 
   /**
@@ -49,30 +90,321 @@ public class InputHandler {
    * 1. {@link EventGrabberTuple} producer loop which for each
    * registered agent calls: a.
    * {@link Agent#updateTrackedGrabber(BogusEvent)}; and, b.
-   * {@link Agent#handle(BogusEvent)}. Note that the bogus event are
-   * obtained from the agents callback
-   * {@link Agent#updateTrackedGrabberFeed()} and
+   * {@link Agent#handle(BogusEvent)}. Note that the bogus events are
+   * obtained from the agents callback {@link Agent#batchFeed(List)} (in order) and then
+   * from the {@link Agent#updateTrackedGrabberFeed()} and
    * {@link Agent#handleFeed()} methods, respectively. The bogus event
-   * may also be obtained from {@link Agent#handleFeed()} which may
-   * replace both of the previous feeds when they are null.<br>
+   * may also be obtained from {@link Agent#feed()} which may
+   * replace both of the previous feeds when they are null. Each feed is called exactly
+   * once per cycle (see {@link #pollAgents()}).<br>
    * 2. User-defined action consumer loop: which for each
    * {@link EventGrabberTuple} calls
-   * {@link EventGrabberTuple#perform()}.<br>
+   * {@link EventGrabberTuple#perform()} (see {@link #performEventTuples()}).<br>
+   * <p>
+   * When the {@link #isInputThreadRunning()} the first loop is run by the input thread
+   * and only the second loop is run here.
    *
+   * @see #startInputThread(float)
+   * @see Agent#batchFeed(List)
    * @see Agent#feed()
    * @see Agent#updateTrackedGrabberFeed()
    * @see Agent#handleFeed()
    */
   public void handle() {
     // 1. Agents
+    if (!isInputThreadRunning())
+      pollAgents();
+    // 2. Low level events
+    performEventTuples();
+  }
+
+  /**
+   * Time-budgeted version of {@link #handle()}. Same as {@link #handle()} but stops
+   * performing tuples once {@code budgetNanos} nanoseconds have elapsed since the method
+   * was called (at least one pending tuple is always performed). The remaining tuples
+   * are kept in the {@link #eventTupleQueue()}, in order, and will be performed before
+   * those produced in the next cycle.
+   *
+   * @return the number of deferred tuples.
+   * @see #deferredEventTuples()
+   * @see #setDeferredCoalescing(boolean)
+   */
+  public int handle(long budgetNanos) {
+    long deadline = System.nanoTime() + budgetNanos;
+    // 1. Agents
+    if (!isInputThreadRunning())
+      pollAgents();
+    // 2. Low level events
+    return performEventTuples(deadline);
+  }
+
+  /**
+   * Returns the number of tuples deferred by the last {@link #handle(long)} call (zero
+   * after a {@link #handle()} call).
+   */
+  public int deferredEventTuples() {
+    return deferred;
+  }
+
+  /**
+   * Returns {@code true} if relative motion events are coalesced (see
+   * {@link #enqueueEventTuple(EventGrabberTuple)}) while there are deferred tuples, even
+   * when motion coalescing is disabled. This prevents the backlog of tuples deferred by
+   * {@link #handle(long)} from growing without bound.
+   *
+   * @see #deferredEventTuples()
+   * @see #isMotionCoalescing()
+   */
+  public boolean isDeferredCoalescing() {
+    return deferredCoalescing;
+  }
+
+  /**
+   * Sets the {@link #isDeferredCoalescing()} value.
+   */
+  public void setDeferredCoalescing(boolean enable) {
+    deferredCoalescing = enable;
+  }
+
+  /**
+   * {@link EventGrabberTuple} producer loop of the {@link #handle()} method. Polls each
+   * registered agent feeds once and calls {@link Agent#updateTrackedGrabber(BogusEvent)}
+   * and {@link Agent#handle(BogusEvent)} on the polled events.
+   */
+  protected void pollAgents() {
     for (Agent agent : agents()) {
-      agent.updateTrackedGrabber(
-          agent.updateTrackedGrabberFeed() != null ? agent.updateTrackedGrabberFeed() : agent.feed());
-      agent.handle(agent.handleFeed() != null ? agent.handleFeed() : agent.feed());
+      // batch feed, the buffer is cleared even if the agent throws so that its events
+      // are never dispatched twice
+      try {
+        agent.batchFeed(feedBuffer);
+        agent.handleBatch(feedBuffer);
+      } finally {
+        feedBuffer.clear();
+      }
+      // single event feeds
+      BogusEvent trackingEvent = agent.updateTrackedGrabberFeed();
+      BogusEvent handlingEvent = agent.handleFeed();
+      if (trackingEvent == null || handlingEvent == null) {
+        BogusEvent event = agent.feed();
+        if (trackingEvent == null)
+          trackingEvent = event;
+        if (handlingEvent == null)
+          handlingEvent = event;
+      }
+      agent.updateTrackedGrabber(trackingEvent);
+      agent.handle(handlingEvent);
     }
-    // 2. Low level events
-    while (!eventTupleQueue.isEmpty())
-      eventTupleQueue.remove().perform();
+  }
+
+  /**
+   * Starts a dedicated input thread which calls {@link #pollAgents()} {@code frequency}
+   * times per second. The {@link EventGrabberTuple}s it produces are handed to the
+   * thread calling {@link #handle()} through the lock-free {@link #eventTupleQueue()},
+   * so that {@link Grabber#performInteraction(BogusEvent)} is still called from a single
+   * thread.
+   * <p>
+   * <b>Note</b> that agent feeds and {@link Grabber#checkIfGrabsInput(BogusEvent)} are
+   * called from the input thread while it's running. The thread thus becomes the
+   * {@link Agent#pickingThread()} of the registered agents and their
+   * {@link Agent#isConcurrentRegistration()} is enabled (until the thread is stopped), so
+   * that grabbers may still be registered and updated from other threads. Calling this
+   * method while the thread is already running just updates its frequency.
+   * <p>
+   * Exceptions thrown while polling the agents are reported to the
+   * {@link #inputThreadExceptionHandler()}. Runtime exceptions don't stop the thread.
+   *
+   * @see #stopInputThread()
+   * @see #isInputThreadRunning()
+   */
+  public void startInputThread(float frequency) {
+    if (frequency <= 0) {
+      System.out.println("Warning: input thread frequency should be positive. Nothing done!");
+      return;
+    }
+    inputThreadFrequency = frequency;
+    if (isInputThreadRunning())
+      return;
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        runInputThread();
+      }
+    }, "bias input handler");
+    thread.setDaemon(true);
+    synchronized (threadedAgents) {
+      inputThread = thread;
+      for (Agent agent : agents())
+        attachInputThread(agent, thread);
+    }
+    thread.start();
+  }
+
+  /**
+   * Makes the given input {@code thread} the {@link Agent#pickingThread()} of the agent.
+   */
+  protected void attachInputThread(Agent agent, Thread thread) {
+    if (agent.pickingThread() == thread)
+      return;
+    // a previous input thread may not have detached the agent yet
+    Boolean forced = threadedAgents.get(agent);
+    if (forced == null) {
+      forced = !agent.isConcurrentRegistration();
+      if (forced)
+        agent.setConcurrentRegistration(true);
+    }
+    agent.setPickingThread(thread);
+    threadedAgents.put(agent, forced);
+  }
+
+  /**
+   * Restores the agents attached to the input thread by
+   * {@link #attachInputThread(Agent, Thread)}. Called by the input thread when it stops.
+   */
+  protected void detachInputThread() {
+    Thread thread = Thread.currentThread();
+    synchronized (threadedAgents) {
+      Iterator<Map.Entry<Agent, Boolean>> iterator = threadedAgents.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<Agent, Boolean> entry = iterator.next();
+        Agent agent = entry.getKey();
+        // skip the agents already attached to a newer input thread
+        if (agent.pickingThread() != thread)
+          continue;
+        if (entry.getValue())
+          agent.setConcurrentRegistration(false);
+        agent.setPickingThread(null);
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Returns the handler reporting the exceptions thrown by the input thread. Defaults to
+   * the input thread {@code Thread.getUncaughtExceptionHandler()}.
+   *
+   * @see #setInputThreadExceptionHandler(java.lang.Thread.UncaughtExceptionHandler)
+   */
+  public Thread.UncaughtExceptionHandler inputThreadExceptionHandler() {
+    return inputThreadExceptionHandler;
+  }
+
+  /**
+   * Sets the {@link #inputThreadExceptionHandler()}. Pass {@code null} to restore the
+   * default one.
+   */
+  public void setInputThreadExceptionHandler(Thread.UncaughtExceptionHandler exceptionHandler) {
+    inputThreadExceptionHandler = exceptionHandler;
+  }
+
+  /**
+   * Stops the input thread (if any) and waits for it to finish its current cycle.
+   * Agents are polled from {@link #handle()} again afterwards.
+   *
+   * @see #startInputThread(float)
+   */
+  public void stopInputThread() {
+    Thread thread = inputThread;
+    if (thread == null)
+      return;
+    inputThread = null;
+    LockSupport.unpark(thread);
+    if (thread != Thread.currentThread())
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+  }
+
+  /**
+   * Returns {@code true} if agents are being polled from a dedicated input thread.
+   *
+   * @see #startInputThread(float)
+   */
+  public boolean isInputThreadRunning() {
+    return inputThread != null;
+  }
+
+  /**
+   * Returns the number of times per second the input thread polls the agents.
+   *
+   * @see #startInputThread(float)
+   */
+  public float inputThreadFrequency() {
+    return inputThreadFrequency;
+  }
+
+  /**
+   * Input thread loop.
+   */
+  protected void runInputThread() {
+    Thread thread = Thread.currentThread();
+    try {
+      while (inputThread == thread) {
+        long start = System.nanoTime();
+        try {
+          pollAgents();
+        } catch (RuntimeException e) {
+          reportInputThreadException(thread, e);
+        }
+        long wait = (long) (1e9f / inputThreadFrequency) - (System.nanoTime() - start);
+        if (wait > 0)
+          LockSupport.parkNanos(this, wait);
+      }
+    } catch (Error e) {
+      // the thread dies: agents are polled from handle() again
+      synchronized (threadedAgents) {
+        if (inputThread == thread)
+          inputThread = null;
+      }
+      reportInputThreadException(thread, e);
+    } finally {
+      detachInputThread();
+    }
+  }
+
+  /**
+   * Reports the exception thrown by the input thread to the
+   * {@link #inputThreadExceptionHandler()}.
+   */
+  protected void reportInputThreadException(Thread thread, Throwable e) {
+    Thread.UncaughtExceptionHandler exceptionHandler = inputThreadExceptionHandler;
+    if (exceptionHandler == null)
+      exceptionHandler = thread.getUncaughtExceptionHandler();
+    exceptionHandler.uncaughtException(thread, e);
+  }
+
+  /**
+   * User-defined action consumer loop of the {@link #handle()} method. Dequeues and
+   * {@link EventGrabberTuple#perform()}s all the tuples in the {@link #eventTupleQueue()}.
+   */
+  protected void performEventTuples() {
+    EventGrabberTuple eventTuple;
+    while ((eventTuple = eventTupleQueue.poll()) != null) {
+      eventTupleIndex.remove(eventTuple);
+      eventTuple.perform();
+      recycleEventTuple(eventTuple);
+    }
+    deferred = 0;
+  }
+
+  /**
+   * Same as {@link #performEventTuples()} but stops once the {@code deadline} (as given
+   * by {@code System.nanoTime()}) is reached. Returns the number of deferred tuples.
+   *
+   * @see #handle(long)
+   */
+  protected int performEventTuples(long deadline) {
+    EventGrabberTuple eventTuple;
+    while ((eventTuple = eventTupleQueue.poll()) != null) {
+      eventTupleIndex.remove(eventTuple);
+      eventTuple.perform();
+      recycleEventTuple(eventTuple);
+      if (System.nanoTime() - deadline >= 0)
+        break;
+    }
+    deferred = eventTupleQueue.size();
+    return deferred;
   }
 
   /**
@@ -93,6 +425,33 @@ public class InputHandler {
       agent.removeGrabber(grabber);
   }
 
+  /**
+   * Calls {@link Agent#addGrabbers(Collection)} on registered
+   * {@link #agents()}.
+   */
+  public void addGrabbers(Collection<? extends Grabber> grabbers) {
+    for (Agent agent : agents())
+      agent.addGrabbers(grabbers);
+  }
+
+  /**
+   * Calls {@link Agent#removeGrabbers(Collection)} on registered
+   * {@link #agents()}.
+   */
+  public void removeGrabbers(Collection<? extends Grabber> grabbers) {
+    for (Agent agent : agents())
+      agent.removeGrabbers(grabbers);
+  }
+
+  /**
+   * Calls {@link Agent#setConcurrentRegistration(boolean)} on registered
+   * {@link #agents()}.
+   */
+  public void setConcurrentRegistration(boolean enable) {
+    for (Agent agent : agents())
+      agent.setConcurrentRegistration(enable);
+  }
+
   /**
    * Calls {@link Agent#removeGrabbers()} on registered
    * {@link #agents()}.
@@ -102,6 +461,15 @@ public class InputHandler {
       agent.removeGrabbers();
   }
 
+  /**
+   * Calls {@link Agent#updateBounds(Grabber)} on registered
+   * {@link #agents()}.
+   */
+  public void updateBounds(Grabber grabber) {
+    for (Agent agent : agents())
+      agent.updateBounds(grabber);
+  }
+
   /**
    * Calls {@link Agent#setDefaultGrabber(Grabber)} on registered
    * {@link #agents()}.
@@ -152,7 +520,11 @@ public class InputHandler {
   }
 
   /**
-   * Returns a list of the registered agents.
+   * Returns a list of the registered agents. Agents may be registered and unregistered
+   * from any thread since the list is copy-on-write, so that iterating it never throws a
+   * {@code ConcurrentModificationException}.
+   *
+   * @see Agent#setConcurrentRegistration(boolean)
    */
   public List<Agent> agents() {
     return agents;
@@ -162,10 +534,12 @@ public class InputHandler {
    * Registers the given agent.
    */
   public boolean registerAgent(Agent agent) {
-    if (agents().contains(agent))
-      return false;
-    else
-      return agents().add(agent);
+    synchronized (threadedAgents) {
+      Thread thread = inputThread;
+      if (thread != null && !agents.contains(agent))
+        attachInputThread(agent, thread);
+      return agents.addIfAbsent(agent);
+    }
   }
 
   /**
@@ -191,30 +565,174 @@ public class InputHandler {
 
   /**
    * Returns the event tuple queue. Rarely needed.
+   *
+   * @see #setEventTupleQueue(EventGrabberTupleQueue)
    */
-  public LinkedList<EventGrabberTuple> eventTupleQueue() {
+  public EventGrabberTupleQueue eventTupleQueue() {
     return eventTupleQueue;
   }
 
+  /**
+   * Sets the event tuple queue, e.g., to use an {@link EventGrabberTupleRingBuffer} with
+   * a larger capacity or prioritized {@link EventGrabberTupleLanes}. Tuples pending in
+   * the previous queue are transferred (in order) into the new one.
+   *
+   * @see #eventTupleQueue()
+   */
+  public void setEventTupleQueue(EventGrabberTupleQueue queue) {
+    if (queue == null || queue == eventTupleQueue)
+      return;
+    EventGrabberTuple eventTuple;
+    while ((eventTuple = eventTupleQueue.poll()) != null)
+      queue.offer(eventTuple);
+    eventTupleQueue = queue;
+  }
+
+  /**
+   * Returns the hash index of the tuples pending in the {@link #eventTupleQueue()}.
+   * Rarely needed.
+   */
+  public EventGrabberTupleIndex eventTupleIndex() {
+    return eventTupleIndex;
+  }
+
+  /**
+   * Returns {@code true} if relative motion events are coalesced before they reach their
+   * grabbers.
+   *
+   * @see #enqueueEventTuple(EventGrabberTuple)
+   * @see #setMotionCoalescing(boolean)
+   */
+  public boolean isMotionCoalescing() {
+    return coalescing;
+  }
+
+  /**
+   * Enables motion coalescing.
+   *
+   * @see #isMotionCoalescing()
+   * @see #disableMotionCoalescing()
+   */
+  public void enableMotionCoalescing() {
+    setMotionCoalescing(true);
+  }
+
+  /**
+   * Disables motion coalescing (default).
+   *
+   * @see #isMotionCoalescing()
+   * @see #enableMotionCoalescing()
+   */
+  public void disableMotionCoalescing() {
+    setMotionCoalescing(false);
+  }
+
+  /**
+   * Sets the {@link #isMotionCoalescing()} value.
+   */
+  public void setMotionCoalescing(boolean enable) {
+    coalescing = enable;
+  }
+
   /**
    * Enqueues the eventTuple for later execution which happens at the end of
-   * {@link #handle()}. Returns {@code true} if succeeded and {@code false} otherwise.
+   * {@link #handle()}. Returns {@code true} if succeeded and {@code false} otherwise,
+   * i.e., when an equal tuple (see {@link EventGrabberTuple#equals(Object)}) is already
+   * pending or when the {@link #eventTupleQueue()} is full.
+   * <p>
+   * If {@link #isMotionCoalescing()} and the tuple holds a relative
+   * {@link remixlab.bias.event.MotionEvent}, the event is folded into the last pending
+   * tuple of the same grabber when both events share the same shortcut (see
+   * {@link remixlab.bias.event.MotionEvent#accumulate(remixlab.bias.event.MotionEvent)}
+   * ). Fired and flushed events are never folded nor folded into, so gesture boundaries
+   * are preserved. The same applies to tuples deferred by {@link #handle(long)} when
+   * {@link #isDeferredCoalescing()}.
    *
    * @see #handle()
+   * @see EventGrabberTupleQueue#overflows()
    */
   public boolean enqueueEventTuple(EventGrabberTuple eventTuple) {
-    if (!eventTupleQueue.contains(eventTuple))
-      return eventTupleQueue.add(eventTuple);
+    if (eventTuple == null)
+      return false;
+    if ((isMotionCoalescing() || (isDeferredCoalescing() && deferred > 0)) && eventTupleIndex.coalesce(eventTuple)) {
+      recycleEventTuple(eventTuple);
+      return true;
+    }
+    if (eventTupleIndex.add(eventTuple)) {
+      if (eventTupleQueue.offer(eventTuple))
+        return true;
+      eventTupleIndex.remove(eventTuple);
+    }
+    recycleEventTuple(eventTuple);
     return false;
   }
 
   /**
-   * Removes the given event from the event queue. No action is executed.
+   * Same as {@code enqueueEventTuple(new EventGrabberTuple(event, grabber, priority))},
+   * but the tuple is taken from a pool of already performed (or discarded) tuples, so
+   * that no allocation takes place once the pool is warm. This is the method used by
+   * {@link Agent#handle(BogusEvent)}.
+   *
+   * @see #enqueueEventTuple(EventGrabberTuple)
+   */
+  public boolean enqueueEventTuple(BogusEvent event, Grabber grabber, int priority) {
+    if (event == null || grabber == null)
+      return false;
+    EventGrabberTuple eventTuple;
+    // the pool is a single consumer queue
+    synchronized (tuplePool) {
+      eventTuple = tuplePool.poll();
+    }
+    if (eventTuple == null) {
+      eventTuple = new EventGrabberTuple(event, grabber, priority);
+      eventTuple.pooled = true;
+    } else
+      eventTuple.set(event, grabber, priority);
+    return enqueueEventTuple(eventTuple);
+  }
+
+  /**
+   * Returns the tuple to the pool of {@link #enqueueEventTuple(BogusEvent, Grabber, int)}
+   * once it has been performed or discarded. Tuples created by the user are never
+   * recycled.
+   */
+  protected void recycleEventTuple(EventGrabberTuple eventTuple) {
+    if (!eventTuple.pooled || eventTuple.indexed)
+      return;
+    // don't retain the event nor the grabber while pooled
+    eventTuple.set(null, null, 0);
+    tuplePool.offer(eventTuple);
+  }
+
+  /**
+   * Returns {@code true} if a tuple equal to the given one is pending execution.
+   */
+  public boolean isEventTupleEnqueued(EventGrabberTuple eventTuple) {
+    return eventTuple != null && eventTupleIndex.contains(eventTuple);
+  }
+
+  /**
+   * Removes the tuples holding the given event from the event queue. No action is
+   * executed.
    *
    * @param event to be removed.
+   * @return the number of removed tuples.
+   * @see EventGrabberTuple#cancel()
+   */
+  public int removeEventTuple(BogusEvent event) {
+    return eventTupleIndex.cancel(event);
+  }
+
+  /**
+   * Removes the tuples targeting the given grabber from the event queue. No action is
+   * executed.
+   *
+   * @param grabber whose tuples are to be removed.
+   * @return the number of removed tuples.
+   * @see EventGrabberTuple#cancel()
    */
-  public void removeEventTuple(BogusEvent event) {
-    eventTupleQueue.remove(event);
+  public int removeEventTuples(Grabber grabber) {
+    return eventTupleIndex.cancel(grabber);
   }
 
   /**
@@ -222,5 +740,6 @@ public class InputHandler {
    */
   public void removeEventTuples() {
     eventTupleQueue.clear();
+    eventTupleIndex.clear();
   }
 }
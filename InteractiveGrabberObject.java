@@ -97,6 +97,42 @@ public class InteractiveGrabberObject extends GrabberObject {
     profile.set(otherGrabber.profile);
   }
 
+  /**
+   * Same as {@code profile.setTemplate(template)}.
+   *
+   * @see Profile#setTemplate(ProfileTemplate)
+   */
+  public void setBindings(ProfileTemplate template) {
+    profile.setTemplate(template);
+  }
+
+  /**
+   * Same as {@code profile.beginBatch()}.
+   *
+   * @see Profile#beginBatch()
+   */
+  public void beginBatch() {
+    profile.beginBatch();
+  }
+
+  /**
+   * Same as {@code profile.endBatch()}.
+   *
+   * @see Profile#endBatch()
+   */
+  public void endBatch() {
+    profile.endBatch();
+  }
+
+  /**
+   * Same as {@code return profile.template()}.
+   *
+   * @see Profile#template()
+   */
+  public ProfileTemplate profileTemplate() {
+    return profile.template();
+  }
+
   /**
    * Same as {@code return profile.hasBinding(shortcut)}.
    * <p>
@@ -0,0 +1,126 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queries a list of grabbers in parallel (on a {@link ForkJoinPool}) to find the first
+ * one meeting the {@link Grabber#checkIfGrabsInput(BogusEvent)} condition. The result is
+ * the same as the one of the serial loop: the grabber having the lowest index in the list.
+ * Ranges lying after a grabber already known to meet the condition are skipped.
+ * <p>
+ * Note that {@link Grabber#checkIfGrabsInput(BogusEvent)} is then called from different
+ * threads, so it should not modify the grabber nor the event.
+ *
+ * @see Agent#setParallelPicking(boolean)
+ */
+public class ParallelPicker {
+  public static final int DEFAULT_THRESHOLD = 2048;
+  public static final int DEFAULT_GRAIN = 256;
+
+  protected ForkJoinPool pool;
+  protected int grain;
+  protected Grabber[] grabbers;
+
+  /**
+   * Same as {@code this(ForkJoinPool.commonPool(), DEFAULT_GRAIN)}.
+   */
+  public ParallelPicker() {
+    this(ForkJoinPool.commonPool(), DEFAULT_GRAIN);
+  }
+
+  /**
+   * Constructs a picker running its tasks on the given pool. Each task queries up to
+   * {@code grain} grabbers serially.
+   */
+  public ParallelPicker(ForkJoinPool pool, int grain) {
+    this.pool = pool;
+    this.grain = Math.max(1, grain);
+    grabbers = new Grabber[0];
+  }
+
+  /**
+   * Returns the first grabber in {@code list} (other than {@code dG} and {@code tG})
+   * meeting the {@link Grabber#checkIfGrabsInput(BogusEvent)} condition, or {@code null}
+   * if none does.
+   */
+  public Grabber pick(List<Grabber> list, BogusEvent event, Grabber dG, Grabber tG) {
+    int size = list.size();
+    // reuse the snapshot array
+    grabbers = list.toArray(grabbers.length >= size ? grabbers : new Grabber[size]);
+    AtomicInteger first = new AtomicInteger(size);
+    pool.invoke(new PickTask(grabbers, grain, event, dG, tG, first, 0, size));
+    int index = first.get();
+    Grabber grabber = index < size ? grabbers[index] : null;
+    // don't keep the grabbers (and whatever they reference) alive between picks
+    Arrays.fill(grabbers, 0, size, null);
+    return grabber;
+  }
+
+  protected static class PickTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    protected Grabber[] grabbers;
+    protected int grain;
+    protected BogusEvent event;
+    protected Grabber dG, tG;
+    protected AtomicInteger first;
+    protected int start, end;
+
+    protected PickTask(Grabber[] grabbers, int grain, BogusEvent event, Grabber dG, Grabber tG, AtomicInteger first,
+        int start, int end) {
+      this.grabbers = grabbers;
+      this.grain = grain;
+      this.event = event;
+      this.dG = dG;
+      this.tG = tG;
+      this.first = first;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (start >= first.get())
+        return;
+      if (end - start <= grain) {
+        for (int i = start; i < end && i < first.get(); i++) {
+          Grabber grabber = grabbers[i];
+          if (grabber != dG && grabber != tG)
+            if (grabber.checkIfGrabsInput(event)) {
+              lower(i);
+              return;
+            }
+        }
+        return;
+      }
+      int mid = (start + end) >>> 1;
+      PickTask right = new PickTask(grabbers, grain, event, dG, tG, first, mid, end);
+      right.fork();
+      // the lower half is computed first by this thread, so that hits found there cut
+      // the upper half short
+      new PickTask(grabbers, grain, event, dG, tG, first, start, mid).compute();
+      right.join();
+    }
+
+    protected void lower(int index) {
+      int current;
+      while (index < (current = first.get()))
+        if (first.compareAndSet(current, index))
+          return;
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+import remixlab.bias.event.ClickEvent;
+import remixlab.bias.event.DOF2Event;
+import remixlab.bias.event.DOF3Event;
+import remixlab.bias.event.DOF6Event;
+
+/**
+ * Direct-mapped cache of picking results keyed by the quantized position of the event,
+ * its class and the agent picking revision (see {@link Agent#setPickingCache(boolean)}).
+ * Only positional events (a {@link ClickEvent} or a relative {@link DOF2Event},
+ * {@link DOF3Event} or {@link DOF6Event}) are cached.
+ */
+public class PickingCache {
+  public static final int SLOTS = 64;
+
+  protected float quantum;
+  protected int[] xs, ys, zs;
+  protected long[] revisions;
+  protected Class<?>[] classes;
+  protected Grabber[] dGs, tGs, results;
+  // last lookup
+  protected int x, y, z, slot;
+
+  /**
+   * Constructs a cache whose positions are quantized to {@code quantum} units (e.g., one
+   * pixel).
+   */
+  public PickingCache(float quantum) {
+    setQuantum(quantum);
+    xs = new int[SLOTS];
+    ys = new int[SLOTS];
+    zs = new int[SLOTS];
+    revisions = new long[SLOTS];
+    classes = new Class<?>[SLOTS];
+    dGs = new Grabber[SLOTS];
+    tGs = new Grabber[SLOTS];
+    results = new Grabber[SLOTS];
+  }
+
+  /**
+   * Returns the size of the quantization cells.
+   */
+  public float quantum() {
+    return quantum;
+  }
+
+  /**
+   * Sets the {@link #quantum()} and {@link #clear()}s the cache.
+   */
+  public void setQuantum(float quantum) {
+    this.quantum = quantum > 0 ? quantum : 1;
+    if (classes != null)
+      clear();
+  }
+
+  /**
+   * Removes all the cached results.
+   */
+  public void clear() {
+    for (int i = 0; i < SLOTS; i++) {
+      classes[i] = null;
+      dGs[i] = tGs[i] = results[i] = null;
+    }
+  }
+
+  /**
+   * Quantizes the event position. Returns {@code false} if the event isn't positional.
+   */
+  protected boolean position(BogusEvent event) {
+    float px, py, pz = 0;
+    if (event instanceof ClickEvent) {
+      px = ((ClickEvent) event).x();
+      py = ((ClickEvent) event).y();
+    } else if (event instanceof DOF2Event && ((DOF2Event) event).isRelative()) {
+      px = ((DOF2Event) event).x();
+      py = ((DOF2Event) event).y();
+    } else if (event instanceof DOF3Event && ((DOF3Event) event).isRelative()) {
+      px = ((DOF3Event) event).x();
+      py = ((DOF3Event) event).y();
+      pz = ((DOF3Event) event).z();
+    } else if (event instanceof DOF6Event && ((DOF6Event) event).isRelative()) {
+      px = ((DOF6Event) event).x();
+      py = ((DOF6Event) event).y();
+      pz = ((DOF6Event) event).z();
+    } else
+      return false;
+    x = (int) Math.floor(px / quantum);
+    y = (int) Math.floor(py / quantum);
+    z = (int) Math.floor(pz / quantum);
+    int h = (x * 73856093) ^ (y * 19349663) ^ (z * 83492791) ^ event.getClass().hashCode();
+    slot = (h ^ (h >>> 16)) & (SLOTS - 1);
+    return true;
+  }
+
+  /**
+   * Returns {@code true} if there's a result cached for the given picking query, which
+   * is then returned by {@link #result()}.
+   */
+  public boolean lookup(BogusEvent event, Grabber dG, Grabber tG, long revision) {
+    if (!position(event))
+      return false;
+    int i = slot;
+    return classes[i] == event.getClass() && xs[i] == x && ys[i] == y && zs[i] == z && revisions[i] == revision
+        && dGs[i] == dG && tGs[i] == tG;
+  }
+
+  /**
+   * Returns the cached result found by the last successful
+   * {@link #lookup(BogusEvent, Grabber, Grabber, long)}. It may be null.
+   */
+  public Grabber result() {
+    return results[slot];
+  }
+
+  /**
+   * Caches the result of the picking query given to the last
+   * {@link #lookup(BogusEvent, Grabber, Grabber, long)} call, which should have returned
+   * {@code false}.
+   */
+  public void store(BogusEvent event, Grabber dG, Grabber tG, long revision, Grabber result) {
+    if (!position(event))
+      return;
+    int i = slot;
+    classes[i] = event.getClass();
+    xs[i] = x;
+    ys[i] = y;
+    zs[i] = z;
+    revisions[i] = revision;
+    dGs[i] = dG;
+    tGs[i] = tG;
+    results[i] = result;
+  }
+}
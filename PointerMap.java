@@ -0,0 +1,167 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+/**
+ * Open addressing hash map from (primitive) pointer ids to {@link Pointer}s, holding the
+ * tracked grabber and the previous event of each pointer of a multi-pointer agent (see
+ * {@link Agent#setMultiPointer(boolean)}). Lookups don't box the ids nor allocate.
+ */
+public class PointerMap {
+  /**
+   * Tracking state of a single pointer.
+   */
+  public static class Pointer {
+    protected int id;
+    protected Grabber trackedGrabber;
+    protected BogusEvent previousEvent;
+    // index of the batch event waiting to be picked, or -1
+    protected int pending;
+
+    /**
+     * Returns the pointer id.
+     */
+    public int id() {
+      return id;
+    }
+
+    /**
+     * Returns the grabber tracked by this pointer. It may be null.
+     */
+    public Grabber trackedGrabber() {
+      return trackedGrabber;
+    }
+
+    /**
+     * Returns the last event of this pointer. It may be null.
+     */
+    public BogusEvent previousEvent() {
+      return previousEvent;
+    }
+  }
+
+  protected int[] keys;
+  protected Pointer[] values;
+  protected int size, mask;
+
+  public PointerMap() {
+    keys = new int[16];
+    values = new Pointer[16];
+    mask = 15;
+  }
+
+  protected static int hash(int id) {
+    int h = id * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  protected int slot(int id) {
+    int i = hash(id) & mask;
+    while (values[i] != null && keys[i] != id)
+      i = (i + 1) & mask;
+    return i;
+  }
+
+  /**
+   * Returns the pointer having the given id, or {@code null} if there's none.
+   */
+  public Pointer get(int id) {
+    return values[slot(id)];
+  }
+
+  /**
+   * Returns the pointer having the given id, creating it if needed.
+   */
+  public Pointer obtain(int id) {
+    int i = slot(id);
+    if (values[i] != null)
+      return values[i];
+    if ((size + 1) * 2 > values.length) {
+      grow();
+      i = slot(id);
+    }
+    Pointer pointer = new Pointer();
+    pointer.id = id;
+    pointer.pending = -1;
+    keys[i] = id;
+    values[i] = pointer;
+    size++;
+    return pointer;
+  }
+
+  /**
+   * Removes the pointer having the given id and returns it, or returns {@code null} if
+   * there's none.
+   */
+  public Pointer remove(int id) {
+    int i = slot(id);
+    Pointer pointer = values[i];
+    if (pointer == null)
+      return null;
+    values[i] = null;
+    size--;
+    // backward shift deletion, so that probe sequences remain unbroken
+    for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+      int home = hash(keys[j]) & mask;
+      if (((j - home) & mask) >= ((j - i) & mask)) {
+        keys[i] = keys[j];
+        values[i] = values[j];
+        values[j] = null;
+        i = j;
+      }
+    }
+    return pointer;
+  }
+
+  protected void grow() {
+    int[] oldKeys = keys;
+    Pointer[] oldValues = values;
+    keys = new int[oldKeys.length << 1];
+    values = new Pointer[oldValues.length << 1];
+    mask = values.length - 1;
+    for (int i = 0; i < oldValues.length; i++)
+      if (oldValues[i] != null) {
+        int j = slot(oldKeys[i]);
+        keys[j] = oldKeys[i];
+        values[j] = oldValues[i];
+      }
+  }
+
+  /**
+   * Returns the number of pointers.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Removes all the pointers.
+   */
+  public void clear() {
+    for (int i = 0; i < values.length; i++)
+      values[i] = null;
+    size = 0;
+  }
+
+  /**
+   * Returns the number of slots, to iterate the pointers with {@link #at(int)}.
+   */
+  public int capacity() {
+    return values.length;
+  }
+
+  /**
+   * Returns the pointer held in the given slot, which may be {@code null}.
+   */
+  public Pointer at(int slot) {
+    return values[slot];
+  }
+}
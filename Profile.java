@@ -10,6 +10,9 @@
 
 package remixlab.bias;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -37,18 +40,176 @@ import java.util.Map.Entry;
  * {@link #Profile(Grabber)} constructor.
  */
 public class Profile {
-  class ObjectMethodTuple {
-    Object object;
-    Method method;
-
-    ObjectMethodTuple(Object o, Method m) {
-      object = o;
+  /**
+   * A binding: the action performing object (which is {@code null} for the profile
+   * grabber methods, so that the binding may be shared among profiles, see
+   * {@link ProfileTemplate}) and method, the matched prototype (whether or not the method
+   * takes the event), and the method handle invoking it.
+   */
+  protected static class ObjectMethodTuple {
+    protected Object object;
+    protected Method method;
+    protected boolean event;
+    protected MethodHandle invoker;
+
+    /**
+     * Binds the {@code method} of the given {@code object}, which is the profile grabber
+     * when {@code external} is {@code false}. The {@code event} flag tells whether or not
+     * the method takes the event. Throws an {@code IllegalAccessException} if the method
+     * can't be accessed.
+     */
+    protected ObjectMethodTuple(Object o, Method m, boolean external, boolean event) throws IllegalAccessException {
+      object = external ? o : null;
       method = m;
+      this.event = event;
+      invoker = invoker(o, m, external, event);
+    }
+
+    /**
+     * Tombstone constructor.
+     */
+    private ObjectMethodTuple() {
+    }
+  }
+
+  // overrides a template binding which has been removed
+  protected static final ObjectMethodTuple REMOVED = new ObjectMethodTuple();
+
+  protected static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Grabber.class, BogusEvent.class);
+
+  /**
+   * Returns a {@code (Grabber, BogusEvent)void} method handle invoking the given
+   * {@code method}, with its arity (with or without the {@code event}) and receiver (the
+   * grabber passed to the handle, or the given {@code object} when it's
+   * {@code external}) already chosen. Called once per binding, so that
+   * {@link #handle(BogusEvent)} performs a direct call. Static methods have no receiver:
+   * the {@code object} is then ignored, as is the grabber of self-bound methods.
+   */
+  protected static MethodHandle invoker(Object object, Method method, boolean external, boolean event)
+      throws IllegalAccessException {
+    MethodHandle handle;
+    try {
+      handle = MethodHandles.lookup().unreflect(method);
+    } catch (IllegalAccessException e) {
+      // e.g., a public method declared by a non-public class
+      method.setAccessible(true);
+      handle = MethodHandles.lookup().unreflect(method);
     }
+    if (Modifier.isStatic(method.getModifiers())) {
+      if (!external)
+        handle = MethodHandles.dropArguments(handle, 0, Grabber.class);
+    } else if (external)
+      handle = handle.bindTo(object);
+    if (!event)
+      handle = MethodHandles.dropArguments(handle, 1, BogusEvent.class);
+    return handle.asType(INVOKER_TYPE);
   }
 
-  protected HashMap<Shortcut, ObjectMethodTuple> map;
+  /**
+   * An immutable snapshot of the profile bindings: the shared template (if any) and the
+   * per-profile override layer, i.e., the bindings set or removed (see
+   * {@link #REMOVED}) on top of the template. The table mirrors the override bindings
+   * whose shortcuts can be packed.
+   */
+  protected static class Bindings {
+    protected final ProfileTemplate template;
+    protected final HashMap<Shortcut, ObjectMethodTuple> map;
+    protected final BindingTable<ObjectMethodTuple> table;
+
+    /**
+     * Takes ownership of the given {@code overrides} map, which may be {@code null}.
+     */
+    protected Bindings(ProfileTemplate template, HashMap<Shortcut, ObjectMethodTuple> overrides) {
+      this.template = template;
+      if (overrides == null || overrides.isEmpty()) {
+        map = null;
+        table = null;
+        return;
+      }
+      map = overrides;
+      table = new BindingTable<ObjectMethodTuple>();
+      for (Entry<Shortcut, ObjectMethodTuple> entry : map.entrySet()) {
+        long key = entry.getKey().packedKey();
+        if (key != Shortcut.NO_KEY)
+          table.put(key, entry.getValue());
+      }
+    }
+
+    /**
+     * Internal use. Wraps the given fields as they are.
+     */
+    protected Bindings(ProfileTemplate template, HashMap<Shortcut, ObjectMethodTuple> map,
+        BindingTable<ObjectMethodTuple> table) {
+      this.template = template;
+      this.map = map;
+      this.table = table;
+    }
+
+    /**
+     * Returns the binding of the given shortcut, looked up in the override layer first
+     * and then in the template, or {@code null} if there's none.
+     */
+    protected ObjectMethodTuple get(Shortcut shortcut) {
+      if (map != null) {
+        ObjectMethodTuple tuple = map.get(shortcut);
+        if (tuple != null)
+          return tuple == REMOVED ? null : tuple;
+      }
+      return template == null ? null : template.get(shortcut);
+    }
+
+    /**
+     * Same as {@link #get(Shortcut)}, but looked up from the packed shortcut key (see
+     * {@link Shortcut#packedKey()}).
+     */
+    protected ObjectMethodTuple get(long key) {
+      if (table != null) {
+        ObjectMethodTuple tuple = table.get(key);
+        if (tuple != null)
+          return tuple == REMOVED ? null : tuple;
+      }
+      return template == null ? null : template.get(key);
+    }
+
+    /**
+     * Returns a new map holding the template bindings merged with the override ones.
+     */
+    protected HashMap<Shortcut, ObjectMethodTuple> merge() {
+      HashMap<Shortcut, ObjectMethodTuple> result = template == null ?
+          new HashMap<Shortcut, ObjectMethodTuple>() :
+          new HashMap<Shortcut, ObjectMethodTuple>(template.map);
+      if (map != null)
+        for (Entry<Shortcut, ObjectMethodTuple> entry : map.entrySet())
+          if (entry.getValue() == REMOVED)
+            result.remove(entry.getKey());
+          else
+            result.put(entry.getKey(), entry.getValue());
+      return result;
+    }
+  }
+
+  protected static final Bindings EMPTY = new Bindings(null, null);
+
+  // published snapshot, read without locking by handle()
+  protected volatile Bindings bindings;
+  // writer working copy, published by commit()
+  protected ProfileTemplate editTemplate;
+  protected HashMap<Shortcut, ObjectMethodTuple> editMap;
+  protected int batchDepth;
+  protected Thread batchOwner;
   protected Grabber grabber;
+  protected ProfileErrorHandler errorHandler;
+
+  /**
+   * Default {@link #errorHandler()}, which prints the failure stack trace.
+   */
+  public static ProfileErrorHandler defaultErrorHandler = new ProfileErrorHandler() {
+    @Override
+    public void handleError(Profile profile, BogusEvent event, Method method, Throwable cause) {
+      System.out.println("Something went wrong when invoking your " + method.getName() + " method");
+      cause.printStackTrace();
+    }
+  };
 
   // static stuff
 
@@ -90,35 +251,217 @@ public class Profile {
    * Attaches a profile to the given grabber.
    */
   public Profile(Grabber g) {
-    map = new HashMap<Shortcut, ObjectMethodTuple>();
     grabber = g;
+    errorHandler = defaultErrorHandler;
+    bindings = EMPTY;
+  }
+
+  /**
+   * Attaches a profile sharing the given template bindings to the given grabber.
+   *
+   * @see #setTemplate(ProfileTemplate)
+   */
+  public Profile(Grabber g, ProfileTemplate t) {
+    this(g);
+    setTemplate(t);
+  }
+
+  /**
+   * Returns the handler of the failures of the actions invoked by
+   * {@link #handle(BogusEvent)}. Default is {@link #defaultErrorHandler}.
+   *
+   * @see #setErrorHandler(ProfileErrorHandler)
+   */
+  public ProfileErrorHandler errorHandler() {
+    return errorHandler;
+  }
+
+  /**
+   * Sets the {@link #errorHandler()}. Pass {@code null} to restore the
+   * {@link #defaultErrorHandler}.
+   */
+  public void setErrorHandler(ProfileErrorHandler handler) {
+    errorHandler = handler == null ? defaultErrorHandler : handler;
   }
 
   /**
    * Instantiates this profile from another profile. Both Profile {@link #grabber()}
    * should be of the same type.
+   * <p>
+   * The bindings aren't copied: both profiles share the {@link #template()} of the other
+   * profile, until either of them changes a binding.
    */
   public void set(Profile p) {
     if (grabber.getClass() != p.grabber.getClass()) {
       System.err.println("Profile grabbers should be of the same type");
       return;
     }
-    map = new HashMap<Shortcut, ObjectMethodTuple>();
-    for (Map.Entry<Shortcut, ObjectMethodTuple> entry : p.map().entrySet()) {
-      if (entry.getValue().object == p.grabber)
-        map.put(entry.getKey(), new ObjectMethodTuple(grabber, entry.getValue().method));
-      else
-        map.put(entry.getKey(), new ObjectMethodTuple(entry.getValue().object, entry.getValue().method));
+    setTemplate(p.template());
+  }
+
+  /**
+   * Returns an immutable template holding this profile bindings, which may then be
+   * shared by other profiles (see {@link #setTemplate(ProfileTemplate)}). If the profile
+   * has overrides (see {@link #hasOverrides()}), a new template is first created and
+   * shared by this profile too.
+   */
+  public synchronized ProfileTemplate template() {
+    awaitBatch();
+    edit();
+    if (editTemplate == null || !editMap.isEmpty()) {
+      editTemplate = new ProfileTemplate(grabber.getClass(), new Bindings(editTemplate, editMap).merge());
+      editMap.clear();
+    }
+    ProfileTemplate template = editTemplate;
+    commit();
+    return template;
+  }
+
+  /**
+   * Shares the given template bindings, removing all the current ones. The template
+   * {@link ProfileTemplate#grabberClass()} should be the {@link #grabber()} class. Pass
+   * {@code null} to remove all the bindings.
+   * <p>
+   * Bindings which are later set or removed are kept in a per-profile override layer,
+   * which is looked up before the template. Since the template is swapped atomically,
+   * this is also the way to switch (e.g., from a settings thread) among several sets of
+   * bindings prepared beforehand.
+   */
+  public synchronized void setTemplate(ProfileTemplate t) {
+    if (t != null && t.grabberClass() != grabber.getClass()) {
+      System.err.println("Profile template grabbers should be of the same type");
+      return;
+    }
+    awaitBatch();
+    edit();
+    editTemplate = t;
+    editMap.clear();
+    commit();
+  }
+
+  /**
+   * Returns {@code true} if some of the bindings have been set or removed since the
+   * {@link #template()} was set.
+   */
+  public boolean hasOverrides() {
+    return view().map != null;
+  }
+
+  /**
+   * Starts a batch of binding changes, which are only published to
+   * {@link #handle(BogusEvent)} all at once, when the matching {@link #endBatch()} is
+   * called. Batches may be nested.
+   * <p>
+   * Bindings may be changed (e.g., from a settings thread, when switching tool modes)
+   * while events are being handled: the profile bindings are kept in an immutable
+   * snapshot, published through a volatile reference, so that {@link #handle(BogusEvent)}
+   * never locks nor sees a half-applied change. The binding queries (e.g.,
+   * {@link #hasBinding(Shortcut)}) made by the thread which began the batch already see
+   * its pending changes, while those made by other threads read the published snapshot.
+   * <p>
+   * A batch belongs to the thread which began it: binding changes (and batches) from
+   * other threads wait until it's ended, and {@link #endBatch()} should be called by that
+   * same thread.
+   *
+   * @see #endBatch()
+   */
+  public synchronized void beginBatch() {
+    awaitBatch();
+    if (batchDepth++ == 0) {
+      batchOwner = Thread.currentThread();
+      edit();
+    }
+  }
+
+  /**
+   * Ends a batch of binding changes, publishing them if it's the outermost one.
+   *
+   * @see #beginBatch()
+   */
+  public synchronized void endBatch() {
+    if (batchDepth == 0) {
+      System.out.println("Warning: endBatch() called without a matching beginBatch()");
+      return;
+    }
+    if (batchOwner != Thread.currentThread()) {
+      System.out.println("Warning: endBatch() should be called by the thread which called beginBatch()");
+      return;
+    }
+    if (--batchDepth == 0) {
+      batchOwner = null;
+      commit();
+      notifyAll();
     }
   }
 
+  /**
+   * Returns {@code true} within a {@link #beginBatch()} / {@link #endBatch()} pair.
+   */
+  public synchronized boolean isBatch() {
+    return batchDepth > 0;
+  }
+
+  /**
+   * Internal use. Waits until the batch begun by other thread (if any) is ended. Should
+   * be called while holding the profile lock.
+   */
+  protected void awaitBatch() {
+    boolean interrupted = false;
+    while (batchDepth > 0 && batchOwner != Thread.currentThread())
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    if (interrupted)
+      Thread.currentThread().interrupt();
+  }
+
+  /**
+   * Internal use. Returns the bindings read by the queries: the working copy to the
+   * thread making a batch (see {@link #beginBatch()}), and the published snapshot
+   * otherwise. Note that the working copy view lacks the packed table, so it should only
+   * be queried by shortcut.
+   */
+  protected Bindings view() {
+    if (batchOwner != Thread.currentThread())
+      return bindings;
+    synchronized (this) {
+      return new Bindings(editTemplate, editMap.isEmpty() ? null : editMap, null);
+    }
+  }
+
+  /**
+   * Internal use. Makes a working copy of the published bindings, if there's none.
+   */
+  protected void edit() {
+    if (editMap == null) {
+      Bindings current = bindings;
+      editTemplate = current.template;
+      editMap = current.map == null ?
+          new HashMap<Shortcut, ObjectMethodTuple>() :
+          new HashMap<Shortcut, ObjectMethodTuple>(current.map);
+    }
+  }
+
+  /**
+   * Internal use. Publishes the working copy, unless within a batch.
+   */
+  protected void commit() {
+    if (batchDepth > 0 || editMap == null)
+      return;
+    bindings = editTemplate == null && editMap.isEmpty() ? EMPTY : new Bindings(editTemplate, editMap);
+    editTemplate = null;
+    editMap = null;
+  }
+
   // public HashMap<Shortcut, Method>
 
   /**
-   * Returns this profile set of shortcuts.
+   * Returns this profile set of shortcuts. Note that the returned set is a copy.
    */
   public Set<Shortcut> shortcuts() {
-    return map.keySet();
+    return map().keySet();
   }
 
   /**
@@ -129,10 +472,54 @@ public class Profile {
   }
 
   /**
-   * Internal use. Shortcut to object-method map.
+   * Internal use. Binds the shortcut to the given tuple in the override layer.
+   */
+  protected synchronized void put(Shortcut shortcut, ObjectMethodTuple tuple) {
+    awaitBatch();
+    edit();
+    editMap.put(shortcut, tuple);
+    commit();
+  }
+
+  /**
+   * Internal use. Removes the shortcut binding, overriding the {@link #template()} one
+   * if any.
+   */
+  protected synchronized void remove(Shortcut shortcut) {
+    awaitBatch();
+    edit();
+    if (editTemplate != null && editTemplate.get(shortcut) != null)
+      editMap.put(shortcut, REMOVED);
+    else
+      editMap.remove(shortcut);
+    commit();
+  }
+
+  /**
+   * Internal use. Returns the binding of the given shortcut, looked up in the override
+   * layer first and then in the {@link #template()}, or {@code null} if there's none.
+   */
+  protected ObjectMethodTuple tuple(Shortcut shortcut) {
+    return view().get(shortcut);
+  }
+
+  /**
+   * Internal use. Returns the binding of the event {@link BogusEvent#shortcut()}, or
+   * {@code null} if there's none. The binding is looked up from the event
+   * {@link BogusEvent#shortcutKey()} in the primitive binding tables, i.e., without
+   * allocating the shortcut, unless the shortcut can't be packed.
+   */
+  protected ObjectMethodTuple binding(BogusEvent event) {
+    long key = event.shortcutKey();
+    return key == Shortcut.NO_KEY ? bindings.get(event.shortcut()) : bindings.get(key);
+  }
+
+  /**
+   * Internal use. Returns a new shortcut to object-method map, holding the
+   * {@link #template()} bindings merged with the override layer ones.
    */
   protected HashMap<Shortcut, ObjectMethodTuple> map() {
-    return map;
+    return view().merge();
   }
 
   /**
@@ -142,7 +529,8 @@ public class Profile {
    * @see #action(Shortcut)
    */
   public Method method(Shortcut shortcut) {
-    return map.get(shortcut) == null ? null : map.get(shortcut).method;
+    ObjectMethodTuple tuple = tuple(shortcut);
+    return tuple == null ? null : tuple.method;
   }
 
   /**
@@ -163,44 +551,54 @@ public class Profile {
    * object.
    */
   public Object object(Shortcut shortcut) {
-    return map.get(shortcut) == null ? null : map.get(shortcut).object;
+    ObjectMethodTuple tuple = tuple(shortcut);
+    if (tuple == null)
+      return null;
+    return tuple.object == null ? grabber : tuple.object;
   }
 
   /**
    * Main class method to be called from
    * {@link Grabber#performInteraction(BogusEvent)}. Calls an action
    * handler if the {@link BogusEvent#shortcut()} is bound.
+   * <p>
+   * The action is invoked through the method handle resolved when the binding was set,
+   * i.e., with the prototype matched by {@code setBinding} and without reflective access
+   * checks nor arguments array allocation. Action failures are reported to the
+   * {@link #errorHandler()}.
    *
    * @see #setBinding(Shortcut, String)
    * @see #setBinding(Object, Shortcut, String)
    */
   public boolean handle(BogusEvent event) {
-    Method iHandlerMethod = method(event.shortcut());
-    if (iHandlerMethod != null) {
-      try {
-        if (object(event.shortcut()) == grabber)
-          iHandlerMethod.invoke(object(event.shortcut()), new Object[]{event});
-        else
-          iHandlerMethod.invoke(object(event.shortcut()), new Object[]{grabber, event});
-        return true;
-      } catch (Exception e) {
-        try {
-          if (object(event.shortcut()) == grabber)
-            iHandlerMethod.invoke(object(event.shortcut()), new Object[]{});
-          else
-            iHandlerMethod.invoke(object(event.shortcut()), new Object[]{grabber});
-          return true;
-        } catch (Exception empty) {
-          System.out.println("Something went wrong when invoking your " + iHandlerMethod.getName() + " method");
-          empty.printStackTrace();
-        }
-        System.out.println("Something went wrong when invoking your " + iHandlerMethod.getName() + " method");
-        e.printStackTrace();
-      }
+    ObjectMethodTuple tuple = binding(event);
+    if (tuple == null)
+      return false;
+    try {
+      tuple.invoker.invokeExact(grabber, event);
+      return true;
+    } catch (Throwable e) {
+      errorHandler.handleError(this, event, tuple.method, e);
     }
     return false;
   }
 
+  /**
+   * Binds the shortcut to the {@code method} of the given {@code object}, which is the
+   * {@link #grabber()} when {@code external} is {@code false}. The {@code event} flag
+   * records the matched prototype, i.e., whether or not the method takes the event.
+   * Returns {@code false} if the method can't be accessed.
+   */
+  protected boolean bind(Shortcut shortcut, Object object, Method method, boolean external, boolean event) {
+    try {
+      put(shortcut, new ObjectMethodTuple(object, method, external, event));
+      return true;
+    } catch (Exception e) {
+      System.out.println("Warning: not binding set! Couldn't access " + method);
+      return false;
+    }
+  }
+
   /**
    * Internal macro.
    */
@@ -273,12 +671,14 @@ public class Profile {
     // 1. Search at context:
     String proto1 = null;
     Method method = null;
+    boolean event = true;
     if (context != null && context != grabber) {
       try {
         method = context.getClass().getMethod(action, new Class<?>[]{grabber.getClass(), shortcut.eventClass()});
       } catch (Exception clazz) {
         try {
           method = context.getClass().getMethod(action, new Class<?>[]{grabber.getClass()});
+          event = false;
         } catch (Exception empty) {
           if (shortcut.defaultEventClass() != null)
             try {
@@ -291,10 +691,8 @@ public class Profile {
           }
         }
       }
-      if (method != null) {
-        map.put(shortcut, new ObjectMethodTuple(context, method));
-        return true;
-      }
+      if (method != null)
+        return bind(shortcut, context, method, true, event);
     }
     // 2. If not found, search at grabber:
     String proto2 = null;
@@ -304,6 +702,7 @@ public class Profile {
     } catch (Exception clazz) {
       try {
         method = grabber.getClass().getMethod(action, new Class<?>[]{});
+        event = false;
       } catch (Exception empty) {
         if (shortcut.defaultEventClass() != null)
           try {
@@ -324,10 +723,8 @@ public class Profile {
         }
       }
     }
-    if (method != null) {
-      map.put(shortcut, new ObjectMethodTuple(grabber, method));
-      return true;
-    }
+    if (method != null)
+      return bind(shortcut, grabber, method, false, event);
     return false;
   }
 
@@ -373,11 +770,13 @@ public class Profile {
     if (printWarning(shortcut, action))
       return false;
     Method method = null;
+    boolean event = true;
     try {
       method = object.getClass().getMethod(action, new Class<?>[]{grabber.getClass(), shortcut.eventClass()});
     } catch (Exception clazz) {
       try {
         method = object.getClass().getMethod(action, new Class<?>[]{grabber.getClass()});
+        event = false;
       } catch (Exception empty) {
         if (shortcut.defaultEventClass() != null)
           try {
@@ -394,10 +793,8 @@ public class Profile {
         }
       }
     }
-    if (method != null) {
-      map.put(shortcut, new ObjectMethodTuple(object, method));
-      return true;
-    }
+    if (method != null)
+      return bind(shortcut, object, method, true, event);
     return false;
   }
 
@@ -447,26 +844,25 @@ public class Profile {
    * @param shortcut {@link Shortcut}
    */
   public void removeBinding(Shortcut shortcut) {
-    map.remove(shortcut);
+    remove(shortcut);
   }
 
   /**
    * Removes all the shortcuts from this object.
    */
   public void removeBindings() {
-    map.clear();
+    setTemplate(null);
   }
 
   /**
    * Removes all the shortcuts from the given shortcut class.
    */
-  public void removeBindings(Class<? extends Shortcut> cls) {
-    Iterator<Entry<Shortcut, ObjectMethodTuple>> it = map.entrySet().iterator();
-    while (it.hasNext()) {
-      Map.Entry<Shortcut, ObjectMethodTuple> pair = it.next();
-      if (cls.equals(pair.getKey().getClass()))
-        it.remove();
-    }
+  public synchronized void removeBindings(Class<? extends Shortcut> cls) {
+    beginBatch();
+    for (Shortcut shortcut : map().keySet())
+      if (cls.equals(shortcut.getClass()))
+        remove(shortcut);
+    endBatch();
   }
 
   /**
@@ -491,7 +887,7 @@ public class Profile {
    */
   protected HashMap<Shortcut, ObjectMethodTuple> map(Class<? extends Shortcut> cls) {
     HashMap<Shortcut, ObjectMethodTuple> result = new HashMap<Shortcut, ObjectMethodTuple>();
-    for (Entry<Shortcut, ObjectMethodTuple> entry : map.entrySet())
+    for (Entry<Shortcut, ObjectMethodTuple> entry : map().entrySet())
       if (entry.getKey() != null && entry.getValue() != null)
         if (cls.equals(entry.getKey().getClass()))
           result.put(entry.getKey(), entry.getValue());
@@ -504,7 +900,7 @@ public class Profile {
   public String info() {
     // 1. Shortcut class list
     ArrayList<Class<? extends Shortcut>> list = new ArrayList<Class<? extends Shortcut>>();
-    for (Shortcut s : map.keySet())
+    for (Shortcut s : map().keySet())
       if (!list.contains(s.getClass()))
         list.add(s.getClass());
     // 2. Print info per Shortcut class
@@ -524,7 +920,7 @@ public class Profile {
    * @return true if this object contains a binding for the specified shortcut.
    */
   public boolean hasBinding(Shortcut shortcut) {
-    return map.containsKey(shortcut);
+    return tuple(shortcut) != null;
   }
 
   /**
@@ -535,8 +931,8 @@ public class Profile {
    * @return true if this object maps one or more shortcuts to the specified action.
    */
   public boolean isActionBound(String action) {
-    for (ObjectMethodTuple tuple : map.values()) {
-      if (grabber == tuple.object && tuple.method.getName().equals(action))
+    for (ObjectMethodTuple tuple : map().values()) {
+      if (tuple.object == null && tuple.method.getName().equals(action))
         return true;
     }
     return false;
@@ -562,6 +958,11 @@ public class Profile {
    * @return true if this object maps one or more shortcuts to the specified action.
    */
   protected boolean isMethodBound(Object object, Method method) {
-    return map.containsValue(new ObjectMethodTuple(object, method));
+    if (object == grabber)
+      object = null;
+    for (ObjectMethodTuple tuple : map().values())
+      if (tuple.object == object && tuple.method.equals(method))
+        return true;
+    return false;
   }
 }
\ No newline at end of file
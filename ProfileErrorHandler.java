@@ -0,0 +1,25 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+import java.lang.reflect.Method;
+
+/**
+ * Handles the failures of the actions invoked by a {@link Profile} (see
+ * {@link Profile#handle(BogusEvent)} and {@link Profile#setErrorHandler(ProfileErrorHandler)}).
+ */
+public interface ProfileErrorHandler {
+  /**
+   * Called when the {@code method} bound to the {@code event} shortcut throws
+   * {@code cause}.
+   */
+  void handleError(Profile profile, BogusEvent event, Method method, Throwable cause);
+}
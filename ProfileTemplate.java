@@ -0,0 +1,91 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable set of {@link Profile} bindings, which may be shared by the profiles of
+ * many grabbers of the same class (see {@link Profile#setTemplate(ProfileTemplate)}).
+ * Each profile then keeps its own override layer, which is only created when one of its
+ * bindings changes, so that large grabber populations sharing the same bindings don't
+ * hold a binding map each.
+ * <p>
+ * Bindings to the grabber methods aren't attached to any particular grabber: they are
+ * invoked on the grabber of the profile handling the event.
+ *
+ * @see Profile#template()
+ */
+public class ProfileTemplate {
+  protected final Class<?> grabberClass;
+  protected final HashMap<Shortcut, Profile.ObjectMethodTuple> map;
+  protected final BindingTable<Profile.ObjectMethodTuple> table;
+
+  /**
+   * Takes a snapshot of the current bindings of the given profile.
+   */
+  public ProfileTemplate(Profile profile) {
+    this(profile.grabber().getClass(), profile.map());
+  }
+
+  /**
+   * Internal use. Takes ownership of the given binding map.
+   */
+  protected ProfileTemplate(Class<?> grabberClass, HashMap<Shortcut, Profile.ObjectMethodTuple> map) {
+    this.grabberClass = grabberClass;
+    this.map = map;
+    table = new BindingTable<Profile.ObjectMethodTuple>();
+    for (Map.Entry<Shortcut, Profile.ObjectMethodTuple> entry : map.entrySet()) {
+      long key = entry.getKey().packedKey();
+      if (key != Shortcut.NO_KEY)
+        table.put(key, entry.getValue());
+    }
+  }
+
+  /**
+   * Returns the class of the grabbers which may share this template.
+   */
+  public Class<?> grabberClass() {
+    return grabberClass;
+  }
+
+  /**
+   * Returns an unmodifiable set of the template shortcuts.
+   */
+  public Set<Shortcut> shortcuts() {
+    return Collections.unmodifiableSet(map.keySet());
+  }
+
+  /**
+   * Returns the number of bindings.
+   */
+  public int size() {
+    return map.size();
+  }
+
+  /**
+   * Returns the binding of the given shortcut, or {@code null} if there's none.
+   */
+  protected Profile.ObjectMethodTuple get(Shortcut shortcut) {
+    return map.get(shortcut);
+  }
+
+  /**
+   * Returns the binding of the given packed shortcut key (see
+   * {@link Shortcut#packedKey()}), or {@code null} if there's none.
+   */
+  protected Profile.ObjectMethodTuple get(long key) {
+    return table.get(key);
+  }
+}
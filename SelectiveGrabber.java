@@ -0,0 +1,26 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+/**
+ * A {@link Grabber} which declares the event classes it may grab, so that agents don't
+ * query it with other events (see {@link Agent#setEventPartitioning(boolean)}).
+ *
+ * @see GrabberObject#canGrab(Class)
+ */
+public interface SelectiveGrabber extends Grabber {
+  /**
+   * Returns {@code false} if {@link #checkIfGrabsInput(BogusEvent)} always returns
+   * {@code false} for events of the given class, and {@code true} otherwise. The returned
+   * value should not change over time.
+   */
+  boolean canGrab(Class<? extends BogusEvent> eventClass);
+}
@@ -90,6 +90,13 @@ public class Shortcut {
   protected final int id;
   protected static HashMap<String, String> ids = new HashMap<String, String>();
 
+  /**
+   * Returned by {@link #packedKey()} and {@link BogusEvent#shortcutKey()} when the
+   * shortcut can't be packed into a primitive key.
+   */
+  public static final long NO_KEY = 0;
+  static final int TAG = 1;
+
   /**
    * Constructs an "empty" shortcut. Same as: {@link #Shortcut(int)} with the integer
    * parameter being NO_NOMODIFIER_MASK.
@@ -216,6 +223,32 @@ public class Shortcut {
     return id;
   }
 
+  /**
+   * Packs the given shortcut class {@code tag} (which should be in {@code [1, 15]}),
+   * modifiers mask, {@code id} and {@code extra} attribute (e.g., the number of clicks
+   * or the key char) into a primitive key. Returns {@link #NO_KEY} if the
+   * {@code modifiers} or the {@code extra} attribute are out of range.
+   *
+   * @see #packedKey()
+   */
+  public static long packKey(int tag, int modifiers, int id, int extra) {
+    if ((modifiers & ~0xFFF) != 0 || (extra & ~0xFFFF) != 0)
+      return NO_KEY;
+    return ((long) tag << 60) | ((long) extra << 44) | ((long) modifiers << 32) | (id & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns a primitive key which uniquely identifies this shortcut among the shortcuts
+   * of all classes, or {@link #NO_KEY} if the shortcut can't be packed, e.g., for custom
+   * shortcut classes. Two shortcuts having the same key (other than {@link #NO_KEY}) are
+   * {@link #equals(Object)}.
+   *
+   * @see BogusEvent#shortcutKey()
+   */
+  public long packedKey() {
+    return getClass() == Shortcut.class ? packKey(TAG, mask, id, 0) : NO_KEY;
+  }
+
   /**
    * Returns the event class this shortcut is to be attached to. Should be non-null.
    *
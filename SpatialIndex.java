@@ -0,0 +1,184 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Spatial index over the {@link Agent#grabbers()} which short-lists the grabbers that may
+ * grab a given event, so that {@link Agent#updateTrackedGrabber(BogusEvent)} only queries
+ * those (see {@link Agent#setSpatialIndex(SpatialIndex)}).
+ * <p>
+ * The index is built from a snapshot of the agent grabbers (see {@link #build(List)}) and
+ * keeps track of each grabber position in it. The {@link #query(BogusEvent)} candidates
+ * are always returned in that order, together with the grabbers the index couldn't
+ * bound, which makes picking return exactly the same grabber as the agent linear scan
+ * does.
+ * <p>
+ * Derive from this class and implement {@link #buildIndex()} and
+ * {@link #collect(BogusEvent)} to define your own index.
+ *
+ * @see UniformGrid
+ * @see BoundingVolumeHierarchy
+ * @see IdBuffer
+ */
+public abstract class SpatialIndex {
+  protected Grabber[] grabbers;
+  protected int grabberCount;
+  protected int[] unbounded, hits, candidates;
+  protected int unboundedCount, hitCount, candidateCount;
+  protected boolean dirty, exhaustive;
+
+  public SpatialIndex() {
+    grabbers = new Grabber[16];
+    unbounded = new int[16];
+    hits = new int[16];
+    candidates = new int[16];
+    dirty = true;
+  }
+
+  /**
+   * Returns {@code true} if the index should be {@link #build(List)} before being queried.
+   */
+  public boolean isDirty() {
+    return dirty;
+  }
+
+  /**
+   * Marks the index as dirty. Called by the agent when grabbers are added or removed.
+   */
+  public void invalidate() {
+    dirty = true;
+  }
+
+  /**
+   * Notifies the index that the given grabber bounds have changed. Simply
+   * {@link #invalidate()}s the index by default.
+   *
+   * @see Agent#updateBounds(Grabber)
+   */
+  public void update(Grabber grabber) {
+    invalidate();
+  }
+
+  /**
+   * Builds the index from the given grabbers, keeping their order.
+   */
+  public void build(List<Grabber> list) {
+    grabberCount = list.size();
+    if (grabbers.length < grabberCount)
+      grabbers = new Grabber[grabberCount];
+    else
+      Arrays.fill(grabbers, grabberCount, grabbers.length, null);
+    for (int i = 0; i < grabberCount; i++)
+      grabbers[i] = list.get(i);
+    unboundedCount = 0;
+    buildIndex();
+    dirty = false;
+  }
+
+  /**
+   * Indexes the {@link #grabber(int)}s. Grabbers which can't be indexed should be
+   * reported with {@link #addUnbounded(int)}, in increasing order.
+   */
+  protected abstract void buildIndex();
+
+  /**
+   * Reports (with {@link #addHit(int)}) the indexed grabbers that may grab the given event.
+   * Returns {@code false} if the event cannot be handled by the index, e.g., when it
+   * isn't positional.
+   */
+  protected abstract boolean collect(BogusEvent event);
+
+  /**
+   * Returns the number of grabbers in the index snapshot.
+   */
+  public int size() {
+    return grabberCount;
+  }
+
+  /**
+   * Returns the grabber at the given position of the index snapshot.
+   */
+  public Grabber grabber(int index) {
+    return grabbers[index];
+  }
+
+  /**
+   * Adds the grabber at the given position to the list of grabbers that should always be
+   * queried.
+   */
+  protected void addUnbounded(int index) {
+    if (unboundedCount == unbounded.length)
+      unbounded = Arrays.copyOf(unbounded, unboundedCount << 1);
+    unbounded[unboundedCount++] = index;
+  }
+
+  /**
+   * Adds the grabber at the given position to the query candidates.
+   */
+  protected void addHit(int index) {
+    if (hitCount == hits.length)
+      hits = Arrays.copyOf(hits, hitCount << 1);
+    hits[hitCount++] = index;
+  }
+
+  /**
+   * Short-lists the grabbers that may grab the given event. Returns the number of
+   * {@link #candidate(int)}s or {@code -1} if the index cannot handle the event, in which
+   * case all the grabbers should be queried.
+   */
+  public int query(BogusEvent event) {
+    hitCount = 0;
+    exhaustive = true;
+    if (!collect(event))
+      return -1;
+    return shortlist();
+  }
+
+  /**
+   * Returns {@code true} (default) if the {@link #candidate(int)}s of the last
+   * {@link #query(BogusEvent)} include all the grabbers that may grab the event. Returns
+   * {@code false} if the index only short-listed the first ones (in snapshot order) that
+   * may grab it, in which case all the grabbers should be queried when none of the
+   * candidates grabs the event.
+   */
+  public boolean isExhaustive() {
+    return exhaustive;
+  }
+
+  /**
+   * Sorts the current hits and merges them with the unbounded grabbers into the
+   * {@link #candidate(int)} list. Returns the number of candidates.
+   */
+  protected int shortlist() {
+    Arrays.sort(hits, 0, hitCount);
+    if (candidates.length < hitCount + unboundedCount)
+      candidates = new int[hitCount + unboundedCount];
+    int h = 0, u = 0;
+    candidateCount = 0;
+    while (h < hitCount || u < unboundedCount)
+      if (u == unboundedCount || (h < hitCount && hits[h] < unbounded[u]))
+        candidates[candidateCount++] = hits[h++];
+      else
+        candidates[candidateCount++] = unbounded[u++];
+    return candidateCount;
+  }
+
+  /**
+   * Returns the i-th candidate of the last {@link #query(BogusEvent)}. Candidates are
+   * sorted according to their position in the index snapshot.
+   */
+  public Grabber candidate(int i) {
+    return grabbers[candidates[i]];
+  }
+}
@@ -0,0 +1,164 @@
+/**************************************************************************************
+ * bias_tree
+ * Copyright (c) 2014-2017 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.bias;
+
+import remixlab.bias.event.ClickEvent;
+import remixlab.bias.event.DOF2Event;
+
+import java.util.Arrays;
+
+/**
+ * A {@link SpatialIndex} which buckets the {@link BoundedGrabber}s into the cells of a
+ * uniform 2D grid, so that only the grabbers overlapping the cell of a positional event
+ * (a {@link ClickEvent} or a relative {@link DOF2Event}) are queried. Other grabbers are
+ * always queried.
+ * <p>
+ * The grid covers the bounds of all the grabbers. Its cell size is given at construction
+ * time but it's enlarged when needed to keep the number of cells below
+ * {@link #MAX_CELLS}.
+ */
+public class UniformGrid extends SpatialIndex {
+  public static final int MAX_CELLS = 1 << 16;
+
+  protected float cellSize, cellWidth, originX, originY;
+  protected int cols, rows;
+  protected int[][] cells;
+  protected int[] cellCounts;
+  protected float[] rects;
+  protected boolean[] bounded;
+  protected float[] rect;
+  protected float x, y;
+
+  /**
+   * Constructs a grid whose cells are {@code cellSize} wide and high.
+   */
+  public UniformGrid(float cellSize) {
+    this.cellSize = cellSize > 0 ? cellSize : 1;
+    rect = new float[4];
+    rects = new float[64];
+    bounded = new boolean[16];
+    cells = new int[0][];
+    cellCounts = new int[0];
+  }
+
+  /**
+   * Returns the cell size given at construction time.
+   */
+  public float cellSize() {
+    return cellSize;
+  }
+
+  @Override
+  protected void buildIndex() {
+    if (bounded.length < grabberCount) {
+      bounded = new boolean[grabberCount];
+      rects = new float[grabberCount << 2];
+    }
+    // 1. grid extent
+    float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+    for (int i = 0; i < grabberCount; i++) {
+      bounded[i] = grabbers[i] instanceof BoundedGrabber && ((BoundedGrabber) grabbers[i]).bounds(rect);
+      if (!bounded[i]) {
+        addUnbounded(i);
+        continue;
+      }
+      System.arraycopy(rect, 0, rects, i << 2, 4);
+      minX = Math.min(minX, rect[0]);
+      minY = Math.min(minY, rect[1]);
+      maxX = Math.max(maxX, rect[2]);
+      maxY = Math.max(maxY, rect[3]);
+    }
+    if (minX > maxX || minY > maxY) {
+      cols = rows = 0;
+      return;
+    }
+    // 2. grid dimensions
+    cellWidth = cellSize;
+    originX = minX;
+    originY = minY;
+    cols = (int) ((maxX - minX) / cellWidth) + 1;
+    rows = (int) ((maxY - minY) / cellWidth) + 1;
+    if ((long) cols * rows > MAX_CELLS) {
+      cellWidth *= (float) Math.sqrt((double) cols * rows / MAX_CELLS) + 0.01f;
+      cols = (int) ((maxX - minX) / cellWidth) + 1;
+      rows = (int) ((maxY - minY) / cellWidth) + 1;
+    }
+    int cellCount = cols * rows;
+    if (cells.length < cellCount) {
+      cells = Arrays.copyOf(cells, cellCount);
+      cellCounts = new int[cellCount];
+    } else
+      Arrays.fill(cellCounts, 0);
+    // 3. bucket grabbers, in order, so that cells are sorted
+    for (int i = 0; i < grabberCount; i++) {
+      if (!bounded[i])
+        continue;
+      int c0 = col(rects[i << 2]), r0 = row(rects[(i << 2) + 1]);
+      int c1 = col(rects[(i << 2) + 2]), r1 = row(rects[(i << 2) + 3]);
+      for (int r = r0; r <= r1; r++)
+        for (int c = c0; c <= c1; c++)
+          insert(r * cols + c, i);
+    }
+  }
+
+  protected void insert(int cell, int index) {
+    int[] bucket = cells[cell];
+    if (bucket == null)
+      bucket = cells[cell] = new int[4];
+    else if (cellCounts[cell] == bucket.length)
+      bucket = cells[cell] = Arrays.copyOf(bucket, bucket.length << 1);
+    bucket[cellCounts[cell]++] = index;
+  }
+
+  protected int col(float px) {
+    int c = (int) ((px - originX) / cellWidth);
+    return c < 0 ? 0 : c >= cols ? cols - 1 : c;
+  }
+
+  protected int row(float py) {
+    int r = (int) ((py - originY) / cellWidth);
+    return r < 0 ? 0 : r >= rows ? rows - 1 : r;
+  }
+
+  /**
+   * Sets the {@code x} and {@code y} event position. Returns {@code false} if the event
+   * isn't positional. Override it to support your own positional events.
+   */
+  protected boolean position(BogusEvent event) {
+    if (event instanceof ClickEvent) {
+      x = ((ClickEvent) event).x();
+      y = ((ClickEvent) event).y();
+      return true;
+    }
+    if (event instanceof DOF2Event && ((DOF2Event) event).isRelative()) {
+      x = ((DOF2Event) event).x();
+      y = ((DOF2Event) event).y();
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  protected boolean collect(BogusEvent event) {
+    if (!position(event))
+      return false;
+    if (cols == 0 || x < originX || y < originY || x >= originX + cols * cellWidth || y >= originY + rows * cellWidth)
+      return true;
+    int cell = row(y) * cols + col(x);
+    int[] bucket = cells[cell];
+    for (int i = 0; i < cellCounts[cell]; i++) {
+      int o = bucket[i] << 2;
+      if (x >= rects[o] && y >= rects[o + 1] && x <= rects[o + 2] && y <= rects[o + 3])
+        addHit(bucket[i]);
+    }
+    return true;
+  }
+}
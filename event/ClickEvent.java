@@ -11,6 +11,7 @@
 package remixlab.bias.event;
 
 import remixlab.bias.BogusEvent;
+import remixlab.bias.Shortcut;
 import remixlab.util.EqualsBuilder;
 import remixlab.util.HashCodeBuilder;
 
@@ -119,6 +120,13 @@ public class ClickEvent extends BogusEvent {
     return new ClickShortcut(modifiers(), id(), clickCount());
   }
 
+  @Override
+  public long shortcutKey() {
+    if (getClass() != ClickEvent.class)
+      return Shortcut.NO_KEY;
+    return Shortcut.packKey(ClickShortcut.TAG, modifiers(), id(), clickCount() <= 0 ? 1 : clickCount());
+  }
+
   /**
    * @return event x coordinate
    */
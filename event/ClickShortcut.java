@@ -44,6 +44,7 @@ public class ClickShortcut extends Shortcut {
   }
 
   protected final int numberOfClicks;
+  static final int TAG = 3;
 
   /**
    * Defines a single click shortcut from the given gesture-id.
@@ -134,6 +135,11 @@ public class ClickShortcut extends Shortcut {
     return r;
   }
 
+  @Override
+  public long packedKey() {
+    return getClass() == ClickShortcut.class ? packKey(TAG, mask, id, numberOfClicks) : NO_KEY;
+  }
+
   /**
    * Returns the click-shortcut click count.
    */
@@ -169,6 +169,16 @@ public class DOF1Event extends MotionEvent {
     return x() - dx();
   }
 
+  @Override
+  public boolean accumulate(MotionEvent event) {
+    if (!super.accumulate(event))
+      return false;
+    DOF1Event other = (DOF1Event) event;
+    x = other.x;
+    dx += other.dx;
+    return true;
+  }
+
   @Override
   public void modulate(float[] sens) {
     if (sens != null)
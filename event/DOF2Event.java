@@ -205,6 +205,18 @@ public class DOF2Event extends MotionEvent {
     return y() - dy();
   }
 
+  @Override
+  public boolean accumulate(MotionEvent event) {
+    if (!super.accumulate(event))
+      return false;
+    DOF2Event other = (DOF2Event) event;
+    x = other.x;
+    dx += other.dx;
+    y = other.y;
+    dy += other.dy;
+    return true;
+  }
+
   @Override
   public void modulate(float[] sens) {
     if (sens != null)
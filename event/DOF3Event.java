@@ -239,6 +239,20 @@ public class DOF3Event extends MotionEvent {
     return z() - dz();
   }
 
+  @Override
+  public boolean accumulate(MotionEvent event) {
+    if (!super.accumulate(event))
+      return false;
+    DOF3Event other = (DOF3Event) event;
+    x = other.x;
+    dx += other.dx;
+    y = other.y;
+    dy += other.dy;
+    z = other.z;
+    dz += other.dz;
+    return true;
+  }
+
   @Override
   public void modulate(float[] sens) {
     if (sens != null)
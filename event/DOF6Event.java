@@ -363,6 +363,26 @@ public class DOF6Event extends MotionEvent {
     return rz() - drz();
   }
 
+  @Override
+  public boolean accumulate(MotionEvent event) {
+    if (!super.accumulate(event))
+      return false;
+    DOF6Event other = (DOF6Event) event;
+    x = other.x;
+    dx += other.dx;
+    y = other.y;
+    dy += other.dy;
+    z = other.z;
+    dz += other.dz;
+    rx = other.rx;
+    drx += other.drx;
+    ry = other.ry;
+    dry += other.dry;
+    rz = other.rz;
+    drz += other.drz;
+    return true;
+  }
+
   @Override
   public void modulate(float[] sens) {
     if (sens != null)
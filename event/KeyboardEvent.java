@@ -11,6 +11,7 @@
 package remixlab.bias.event;
 
 import remixlab.bias.BogusEvent;
+import remixlab.bias.Shortcut;
 
 /**
  * A keyboard event is a {@link BogusEvent} specialization that
@@ -83,6 +84,16 @@ public class KeyboardEvent extends BogusEvent {
       return new KeyboardShortcut(key());
   }
 
+  @Override
+  public long shortcutKey() {
+    if (getClass() != KeyboardEvent.class)
+      return Shortcut.NO_KEY;
+    if (key == '\0')
+      return Shortcut.packKey(KeyboardShortcut.TAG, modifiers(), id(), 0);
+    else
+      return Shortcut.packKey(KeyboardShortcut.TAG, NO_MODIFIER_MASK, NO_ID, key());
+  }
+
   public char key() {
     return key;
   }
@@ -40,6 +40,7 @@ public final class KeyboardShortcut extends Shortcut {
   }
 
   protected final char key;
+  static final int TAG = 2;
 
   /**
    * Defines a keyboard shortcut from the given character.
@@ -104,6 +105,11 @@ public final class KeyboardShortcut extends Shortcut {
     return super.description();
   }
 
+  @Override
+  public long packedKey() {
+    return packKey(TAG, mask, id, key);
+  }
+
   /**
    * Returns the keyboard-shortcut key.
    */
@@ -11,6 +11,7 @@
 package remixlab.bias.event;
 
 import remixlab.bias.BogusEvent;
+import remixlab.bias.Shortcut;
 import remixlab.util.EqualsBuilder;
 import remixlab.util.HashCodeBuilder;
 
@@ -98,6 +99,34 @@ public class MotionEvent extends BogusEvent {
     return (MotionEvent) super.fire();
   }
 
+  /**
+   * Folds the given relative event, which should directly follow this one, into this
+   * (relative) event: the event dof deltas, {@link #distance()} and {@link #delay()} are
+   * accumulated and the {@link #speed()} is recomputed from them.
+   * <p>
+   * Returns {@code false} (leaving this event untouched) when the events cannot be
+   * folded, i.e., if they are of different types, either of them is absolute,
+   * {@link #fired()} or {@link #flushed()}, or they have different modifiers or ids.
+   *
+   * @see remixlab.bias.InputHandler#enableMotionCoalescing()
+   */
+  public boolean accumulate(MotionEvent event) {
+    if (event == null || event == this || event.getClass() != getClass())
+      return false;
+    if (isAbsolute() || event.isAbsolute() || fired() || flushed() || event.fired() || event.flushed())
+      return false;
+    if (modifiers() != event.modifiers() || id() != event.id())
+      return false;
+    distance += event.distance;
+    delay += event.delay;
+    if (delay == 0)
+      speed = distance;
+    else
+      speed = distance / (float) delay;
+    timestamp = event.timestamp;
+    return true;
+  }
+
   /**
    * Modulate the event dofs according to {@code sens}. Only meaningful if the event
    * {@link #isAbsolute()}.
@@ -110,6 +139,15 @@ public class MotionEvent extends BogusEvent {
     return new MotionShortcut(modifiers(), id());
   }
 
+  @Override
+  public long shortcutKey() {
+    Class<?> clazz = getClass();
+    if (clazz != DOF2Event.class && clazz != DOF3Event.class && clazz != DOF6Event.class && clazz != DOF1Event.class
+        && clazz != MotionEvent.class)
+      return Shortcut.NO_KEY;
+    return Shortcut.packKey(MotionShortcut.TAG, modifiers(), id(), 0);
+  }
+
   /**
    * Returns the delay between two consecutive motion events. Meaningful only if the event
    * {@link #isRelative()}.
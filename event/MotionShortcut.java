@@ -30,6 +30,7 @@ import java.util.HashMap;
  */
 public final class MotionShortcut extends Shortcut {
   protected static HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
+  static final int TAG = 4;
 
   /**
    * Returns the {@link #id()} DOF's.
@@ -162,4 +163,9 @@ public final class MotionShortcut extends Shortcut {
   public Class<? extends MotionEvent> defaultEventClass() {
     return MotionEvent.class;
   }
+
+  @Override
+  public long packedKey() {
+    return packKey(TAG, mask, id, 0);
+  }
 }